@@ -0,0 +1,55 @@
+// Progressive rate bands with the tax due below each band's threshold precomputed,
+// so the tax on an amount is a binary search for its band plus a multiply-add.
+// Thresholds are held in cents and rates in micros (see Money), so the tax is exact until it is rounded.
+public class BracketTable {
+    private final long[] thresholds; // ascending lower bound of each band in cents, first is 0
+    private final long[] rates;      // micros
+    private final long[] cumulative; // exact tax (cents * micros) due on income up to each band's threshold
+
+    public BracketTable(double[] thresholds, double[] rates) {
+        if (thresholds.length == 0 || thresholds.length != rates.length) {
+            throw new IllegalArgumentException("Each band needs a threshold and a rate.");
+        }
+        if (thresholds[0] != 0) {
+            throw new IllegalArgumentException("The first band must start at 0.");
+        }
+        for (int i = 1; i < thresholds.length; i++) {
+            if (thresholds[i] <= thresholds[i - 1]) {
+                throw new IllegalArgumentException("Band thresholds must be strictly ascending.");
+            }
+        }
+
+        this.thresholds = new long[thresholds.length];
+        this.rates = new long[rates.length];
+        for (int i = 0; i < thresholds.length; i++) {
+            this.thresholds[i] = Money.toCents(thresholds[i]);
+            this.rates[i] = Money.rateToMicros(rates[i]);
+        }
+        this.cumulative = new long[thresholds.length];
+        for (int i = 1; i < thresholds.length; i++) {
+            cumulative[i] = cumulative[i - 1] + this.rates[i - 1] * (this.thresholds[i] - this.thresholds[i - 1]);
+        }
+    }
+
+    // Tax due on the given amount across all bands, rounded half-up to the cent
+    public long taxFor(long cents) {
+        return Money.divide(exactTaxFor(cents), Money.MICROS);
+    }
+
+    // Tax due on the given amount in cent-micros (cents * 1,000,000), before any rounding
+    public long exactTaxFor(long cents) {
+        // Binary search for the last band starting at or below the amount. Each step picks the half with a
+        // conditional move rather than a branch, as a mixed payroll makes the comparison unpredictable.
+        int band = 0;
+        for (int remaining = thresholds.length; remaining > 1; ) {
+            int half = remaining >>> 1;
+            band = thresholds[band + half] <= cents ? band + half : band;
+            remaining -= half;
+        }
+        return Math.addExact(Math.multiplyExact(rates[band], cents - thresholds[band]), cumulative[band]);
+    }
+
+    public int size() {
+        return thresholds.length;
+    }
+}
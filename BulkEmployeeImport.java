@@ -0,0 +1,155 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/*
+Bulk onboarding from a staging CSV, e.g. a whole academic intake at the start of a semester.
+
+Staging file layout (header row required):
+  name,employeeType,employeePosition,salaryPoint,hourlyRate,healthInsuranceRate
+Full-time rows need a position and salary point that exist in ULSalaryInformation.csv; part-time rows
+need a positive hourly rate. Columns that do not apply to the type may be left empty.
+
+The file is streamed in batches. Each batch of valid rows gets a block of IDs and is written to the
+repository in one go; invalid rows are reported with their line number and skipped without stopping
+the run. Exporting the result (e.g. rewriting Employees.csv and PartTimeEmployees.csv once, in one
+buffered pass each) is left to the caller, which knows what backs the repository.
+ */
+public class BulkEmployeeImport {
+
+    private static final int BATCH_SIZE = 10_000;
+
+    private final EmployeeRepository repository;
+    private final SalaryScaleIndex salaryScales;
+
+    private int imported;
+    private final List<String> errors = new ArrayList<>();
+
+    public BulkEmployeeImport(EmployeeRepository repository, SalaryScaleIndex salaryScales) {
+        this.repository = repository;
+        this.salaryScales = salaryScales;
+    }
+
+    // Imports every valid row of the staging file and returns the number of employees created
+    public int run(File stagingFile) throws IOException {
+        List<Employee> batch = new ArrayList<>(BATCH_SIZE);
+        LocalDate startDate = LocalDate.now();
+
+        try (BufferedReader br = new BufferedReader(new FileReader(stagingFile))) {
+            br.readLine(); // Skip the header line
+
+            String line;
+            int lineNumber = 1;
+            while ((line = br.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+
+                try {
+                    batch.add(parseRow(line, startDate));
+                } catch (IllegalArgumentException e) {
+                    errors.add("Line " + lineNumber + ": " + e.getMessage());
+                }
+
+                if (batch.size() == BATCH_SIZE) {
+                    createBatch(batch);
+                    batch.clear();
+                }
+            }
+        }
+        createBatch(batch);
+        return imported;
+    }
+
+    public int getImportedCount() {
+        return imported;
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    // Builds the employee with a placeholder ID; the real IDs are assigned per batch
+    private Employee parseRow(String line, LocalDate startDate) {
+        String[] parts = line.split(",", -1);
+        if (parts.length < 6) {
+            throw new IllegalArgumentException("expected 6 columns but found " + parts.length);
+        }
+
+        String name = parts[0].trim();
+        String typeText = parts[1].trim().toUpperCase(Locale.ROOT);
+        String position = parts[2].trim();
+        if (name.isEmpty()) {
+            throw new IllegalArgumentException("name is missing");
+        }
+        if (position.isEmpty()) {
+            throw new IllegalArgumentException("position is missing");
+        }
+
+        Employee.EmployeeType employeeType;
+        try {
+            employeeType = Employee.EmployeeType.valueOf(typeText);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("unknown employee type '" + parts[1].trim() + "'");
+        }
+
+        if (employeeType == Employee.EmployeeType.PART_TIME) {
+            double hourlyRate = parseDouble(parts[4], "hourly rate");
+            if (hourlyRate <= 0) {
+                throw new IllegalArgumentException("hourly rate must be positive");
+            }
+            return new PartTimeEmployee(name, 0, position, hourlyRate, 0, startDate, false);
+        }
+
+        int salaryPoint = parseInt(parts[3], "salary point");
+        double salary = salaryScales.getSalary(position, salaryPoint);
+        if (salary < 0) {
+            throw new IllegalArgumentException("no salary for position '" + position + "' at scale point " + salaryPoint);
+        }
+        double healthInsuranceRate = parts[5].isBlank() ? 0 : parseDouble(parts[5], "health insurance rate");
+        return new Employee(name, 0, employeeType, position, salary, salaryPoint, startDate, healthInsuranceRate);
+    }
+
+    private void createBatch(List<Employee> batch) throws IOException {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        int[] ids = repository.allocateEmployeeIds(batch.size());
+        for (int i = 0; i < ids.length; i++) {
+            batch.get(i).setEmployeeId(ids[i]);
+        }
+
+        try {
+            repository.createAll(batch);
+        } catch (IOException | RuntimeException e) {
+            for (int id : ids) {
+                repository.releaseEmployeeId(id);
+            }
+            throw e;
+        }
+        imported += batch.size();
+    }
+
+    private static int parseInt(String text, String field) {
+        try {
+            return Integer.parseInt(text.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid " + field + " '" + text.trim() + "'");
+        }
+    }
+
+    private static double parseDouble(String text, String field) {
+        try {
+            return Double.parseDouble(text.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid " + field + " '" + text.trim() + "'");
+        }
+    }
+}
@@ -1,10 +1,18 @@
-import java.time.LocalDate;
+import java.io.IOException;
+import java.net.URI;
 import java.util.List;
 import java.util.Scanner;
 
+// Interactive menus. The operations run in this process, or on a running PayrollServer when started
+// with -Dpayroll.server=http://127.0.0.1:<port>, in which case this is only a thin client.
 public class CLI {
+
+    private static PayrollService service;
+
     public static void main(String[] args) {
         Scanner scanner = new Scanner(System.in);
+        String server = System.getProperty("payroll.server");
+        service = server == null ? new LocalPayrollService() : new RemotePayrollService(URI.create(server));
 
         System.out.println("Welcome to the Payroll System");
 
@@ -29,6 +37,7 @@ public class CLI {
                     hrMenu(scanner);
                     break;
                 case "4":
+                    saveEmployeeStore();
                     System.out.println("Exiting the system. Goodbye!");
                     scanner.close();
                     return;
@@ -38,6 +47,15 @@ public class CLI {
         }
     }
 
+    // Write the employee store back out to the CSV files (the server does this itself when it stops)
+    private static void saveEmployeeStore() {
+        try {
+            service.close();
+        } catch (IOException e) {
+            System.err.println("Error writing employees to CSV: " + e.getMessage());
+        }
+    }
+
     // Employee Menu
     // Employee Menu
     private static void employeeMenu(Scanner scanner) {
@@ -46,12 +64,9 @@ public class CLI {
         System.out.print("Enter your Employee ID: ");
         try {
             int employeeId = Integer.parseInt(scanner.nextLine().trim());
-            List<Employee> employees = CSVHandler.readEmployeesFromCSV();
-            Employee employee = Employee.getEmployeeById(employees, employeeId);
 
-            // Load the employee's payslips from CSV or data source
-            List<Payslip> payslips = CSVHandler.readPayslipsForEmployee(employeeId);
-            employee.setPayslips(payslips);
+            // Load the employee's payslips from the payslip ledger
+            List<String> payslips = service.listPayslips(employeeId);
 
             while (true) {
                 System.out.println("\nChoose an option:");
@@ -65,27 +80,27 @@ public class CLI {
                 switch (choice) {
                     case "1":
                         System.out.println("\nEmployee Details:");
-                        System.out.println(employee);
+                        System.out.println(service.describeEmployee(employeeId));
                         break;
                     case "2":
                         System.out.println("\nMost Recent Payslip:");
-                        if (!employee.getPayslips().isEmpty()) {
-                            System.out.println(employee.getPayslips().get(employee.getPayslips().size() - 1));
+                        if (!payslips.isEmpty()) {
+                            System.out.println(payslips.get(payslips.size() - 1));
                         } else {
                             System.out.println("No payslips available.");
                         }
                         break;
                     case "3":
-                        if (employee.getPayslips().isEmpty()) {
+                        if (payslips.isEmpty()) {
                             System.out.println("\nNo payslips available.");
                         } else {
                             System.out.println("\nHistorical Payslips:");
-                            employee.getPayslips().forEach(System.out::println);
+                            payslips.forEach(System.out::println);
                         }
                         break;
                     case "4":
-                        if (employee instanceof PartTimeEmployee) {
-                            submitPaymentRequest((PartTimeEmployee) employee, scanner);
+                        if (service.isPartTime(employeeId)) {
+                            submitPaymentRequest(employeeId, scanner);
                         } else {
                             System.out.println("Invalid option for this employee type.");
                         }
@@ -101,12 +116,14 @@ public class CLI {
             System.out.println("Invalid Employee ID. Returning to main menu.");
         } catch (IllegalArgumentException e) {
             System.out.println(e.getMessage());
+        } catch (IOException e) {
+            System.err.println("Error reading the employee store: " + e.getMessage());
         }
     }
 
     // Submit a payment request for a part-time employee
-    private static void submitPaymentRequest(PartTimeEmployee employee, Scanner scanner) {
-        if (employee.isPaymentRequestSubmitted()) {
+    private static void submitPaymentRequest(int employeeId, Scanner scanner) throws IOException {
+        if (service.isPaymentRequestSubmitted(employeeId)) {
             System.out.println("A payment request has already been submitted.");
             return;
         }
@@ -114,19 +131,13 @@ public class CLI {
         System.out.print("Enter the number of hours worked this month: ");
         try {
             int hoursWorked = Integer.parseInt(scanner.nextLine().trim());
-
-            if (hoursWorked <= 0) {
-                System.out.println("Invalid number of hours. Payment request not submitted.");
-                return;
-            }
-
-            double paymentAmount = hoursWorked * employee.getHourlyRate();
-            System.out.printf("Payment request for €%.2f submitted successfully.%n", paymentAmount);
-            employee.setHoursWorked(hoursWorked);
-            employee.submitPaymentRequest();
-            CSVHandler.updateEmployeeInCSV(employee);
+            System.out.println(service.submitPaymentRequest(employeeId, hoursWorked));
         } catch (NumberFormatException e) {
             System.out.println("Invalid input. Payment request not submitted.");
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+        } catch (IOException e) {
+            System.err.println("Error updating the employee store: " + e.getMessage());
         }
     }
 
@@ -137,7 +148,8 @@ public class CLI {
         while (true) {
             System.out.println("\nChoose an option:");
             System.out.println("1. Create a New Employee");
-            System.out.println("2. Logout");
+            System.out.println("2. Bulk Import Employees");
+            System.out.println("3. Logout");
 
             String choice = scanner.nextLine().trim();
 
@@ -146,6 +158,9 @@ public class CLI {
                     createEmployee(scanner);
                     break;
                 case "2":
+                    bulkImportEmployees(scanner);
+                    break;
+                case "3":
                     System.out.println("Logging out...");
                     return;
                 default:
@@ -173,42 +188,26 @@ public class CLI {
             System.out.print("Enter position: ");
             String position = scanner.nextLine().trim();
 
-            double payRate = 0.0; // This will be the hourly rate for part-time employees, or the salary for full-time employees
-            int scalePoint = 0;   // This will be used for salary scale points (only for full-time employees)
-            double healthInsuranceRate = 0.0; // For full-time employees
-
-            // For part-time employees, ask for hourly rate
+            int newID;
             if (employeeType == Employee.EmployeeType.PART_TIME) {
+                // For part-time employees, ask for hourly rate
                 System.out.print("Enter hourly rate: ");
-                payRate = Double.parseDouble(scanner.nextLine().trim());
+                double hourlyRate = Double.parseDouble(scanner.nextLine().trim());
+                newID = service.createPartTimeEmployee(name, position, hourlyRate);
             } else {
-                // For full-time employees, get salary scale point and retrieve the salary from CSVHandler
+                // For full-time employees, the salary comes from the salary scale point
                 System.out.print("Enter salary scale point: ");
-                scalePoint = Integer.parseInt(scanner.nextLine().trim());
-                double salary = CSVHandler.readSalary(position, scalePoint);
-                payRate = salary;
+                int scalePoint = Integer.parseInt(scanner.nextLine().trim());
 
                 System.out.print("Enter health insurance rate (as a %): ");
-                healthInsuranceRate = Double.parseDouble(scanner.nextLine().trim());
-            }
-
-            // Set default last promotion date
-            LocalDate lastPromotionDate = LocalDate.now();
-
-            // Create the new employee based on type
-            Employee newEmployee;
-            if (employeeType == Employee.EmployeeType.FULL_TIME) {
-                // Create a full-time employee
-                int newID = CSVHandler.getLowestUniqueId();
-                newEmployee = new Employee(name, newID, employeeType, position, payRate, scalePoint, lastPromotionDate, healthInsuranceRate);
-            } else {
-                // Create a part-time employee
-                newEmployee = new PartTimeEmployee(name, CSVHandler.getLowestUniqueId(), position, payRate, 0, lastPromotionDate, false);
+                double healthInsuranceRate = Double.parseDouble(scanner.nextLine().trim());
+                newID = service.createFullTimeEmployee(name, position, scalePoint, healthInsuranceRate);
             }
 
-            // Write employee to CSV
-            CSVHandler.writeEmployeeToCSV(newEmployee);
-            System.out.println("New employee created successfully! Employee ID: "+ newEmployee.getEmployeeId());
+            // Added to the roster (written out to the CSV files on exit)
+            System.out.println("New employee created successfully! Employee ID: "+ newID);
+        } catch (IllegalArgumentException e) {
+            System.out.println(e instanceof NumberFormatException ? "Error creating employee. Please try again." : e.getMessage());
         } catch (Exception e) {
             System.out.println("Error creating employee. Please try again.");
             e.printStackTrace(); // Optional: for debugging purposes
@@ -216,6 +215,22 @@ public class CLI {
     }
 
 
+    // Import a staging CSV of new hires
+    private static void bulkImportEmployees(Scanner scanner) {
+        System.out.println("\n--- Bulk Import Employees ---");
+        System.out.print("Enter the path of the staging CSV file: ");
+        String stagingFilePath = scanner.nextLine().trim();
+
+        try {
+            service.importEmployees(stagingFilePath).forEach(System.out::println);
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+        } catch (IOException e) {
+            System.err.println("Error importing employees: " + e.getMessage());
+        }
+    }
+
+
     // Human Resources Menu
     private static void hrMenu(Scanner scanner) {
         System.out.println("\n--- Human Resources Menu ---");
@@ -246,19 +261,10 @@ public class CLI {
 
     // Generate monthly payslips for all employees on the 25th
     private static void generateMonthlyPayslipsForAll() {
-        List<Employee> employees = CSVHandler.readEmployeesFromCSV();
-        LocalDate today = LocalDate.now();
-
-        if (today.getDayOfMonth() == 25) {
-            for (Employee employee : employees) {
-                Payslip payslip = PayrollSystem.generateMonthlyPayslips(employee); // Generate payslip for each employee
-                CSVHandler.writePayslipToCSV(payslip);  // Write each payslip to CSV
-            }
-            System.out.println("Payslips generated successfully for all employees.");
-            System.out.println("Employees who did not submit a payment request have not been paid.");
-
-        } else {
-            System.out.println("Payslips can only be generated on the 25th of the month.");
+        try {
+            service.generateMonthlyPayslips().forEach(System.out::println);
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
         }
     }
 
@@ -269,10 +275,7 @@ public class CLI {
             System.out.print("Enter the Employee ID to promote: ");
             int employeeId = Integer.parseInt(scanner.nextLine().trim());
 
-            List<Employee> employees = CSVHandler.readEmployeesFromCSV();
-            Employee employee = Employee.getEmployeeById(employees, employeeId);
-
-            if (employee.getEmployeeType() != Employee.EmployeeType.FULL_TIME) {
+            if (service.isPartTime(employeeId)) {
                 System.out.println("Only full-time employees can be promoted.");
                 return;
             }
@@ -283,19 +286,13 @@ public class CLI {
             System.out.print("Enter the new salary scale point: ");
             int newScalePoint = Integer.parseInt(scanner.nextLine().trim());
 
-            double newSalary = CSVHandler.readSalary(newJobTitle, newScalePoint);
-            if (newSalary < 0) {
-                System.out.println("Invalid salary scale point for the given job title.");
-                return;
+            System.out.println(service.promoteEmployee(employeeId, newJobTitle, newScalePoint));
+        } catch (IllegalArgumentException e) {
+            if (e instanceof NumberFormatException) {
+                System.out.println("Error during promotion. Please try again.");
+            } else {
+                System.out.println(e.getMessage());
             }
-
-            employee.setEmployeePosition(newJobTitle);
-            employee.setSalaryPoint(newScalePoint);
-            employee.setSalary(newSalary);
-            employee.setLastPromotionDate(LocalDate.now());
-            CSVHandler.updateEmployeeInCSV(employee);
-
-            System.out.println("Promotion applied successfully.");
         } catch (Exception e) {
             System.out.println("Error during promotion. Please try again.");
         }
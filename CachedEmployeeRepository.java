@@ -0,0 +1,147 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+// EmployeeRepository that keeps the whole roster in memory on top of an EmployeeStore.
+// Employees are indexed by ID (open-addressing IntHashMap); every create and update goes to the
+// store first and then to the index. Concurrent single updates are group-committed: callers arriving
+// while the store is syncing are written together by the next sync.
+// The cached instances never leave the repository to be changed: lookups hand out copies, and a saved
+// employee is copied into the cache only once the store has accepted it, so a failed write leaves the
+// cache as it was.
+public final class CachedEmployeeRepository implements EmployeeRepository {
+
+    private static CachedEmployeeRepository defaultRepository;
+
+    private final EmployeeStore store;
+    private final List<Employee> employees;
+    private final IntHashMap<Employee> byId;
+    private final IntHashMap<Integer> rowById;
+    private final EmployeeIdAllocator idAllocator;
+    private final GroupCommit<Employee> updates = new GroupCommit<>(this::updateAll);
+
+    public CachedEmployeeRepository(EmployeeStore store) throws IOException {
+        this.store = store;
+        this.employees = store.readAll();
+        this.byId = new IntHashMap<>(employees.size());
+        this.rowById = new IntHashMap<>(employees.size());
+
+        for (int row = 0; row < employees.size(); row++) {
+            Employee employee = employees.get(row);
+            byId.put(employee.getEmployeeId(), employee);
+            rowById.put(employee.getEmployeeId(), row);
+        }
+        this.idAllocator = EmployeeIdAllocator.fromEmployees(employees);
+    }
+
+    static synchronized CachedEmployeeRepository getDefault() throws IOException {
+        if (defaultRepository == null) {
+            defaultRepository = new CachedEmployeeRepository(EmployeeStore.getDefault());
+        }
+        return defaultRepository;
+    }
+
+    @Override
+    public synchronized Employee findById(int employeeId) {
+        Employee employee = byId.get(employeeId);
+        if (employee == null) {
+            throw new IllegalArgumentException("No employee found with ID " + employeeId);
+        }
+        return employee.copy();
+    }
+
+    @Override
+    public synchronized boolean exists(int employeeId) {
+        return byId.containsKey(employeeId);
+    }
+
+    // The cached instances themselves, read-only: copying the whole roster for every payroll run would
+    // cost more than the run
+    @Override
+    public synchronized List<Employee> findAll() {
+        return new ArrayList<>(employees);
+    }
+
+    @Override
+    public synchronized int size() {
+        return employees.size();
+    }
+
+    @Override
+    public int allocateEmployeeId() {
+        return idAllocator.allocate();
+    }
+
+    @Override
+    public int[] allocateEmployeeIds(int count) {
+        return idAllocator.allocateBlock(count);
+    }
+
+    @Override
+    public void releaseEmployeeId(int employeeId) {
+        if (!exists(employeeId)) {
+            idAllocator.release(employeeId);
+        }
+    }
+
+    @Override
+    public synchronized void create(Employee created) throws IOException {
+        checkNewId(created);
+        store.insert(created);
+        Employee employee = created.copy();
+        idAllocator.markUsed(employee.getEmployeeId()); // Already reserved if it came from allocateEmployeeId
+
+        rowById.put(employee.getEmployeeId(), employees.size());
+        employees.add(employee);
+        byId.put(employee.getEmployeeId(), employee);
+    }
+
+    @Override
+    public synchronized void createAll(List<Employee> newEmployees) throws IOException {
+        for (Employee created : newEmployees) {
+            checkNewId(created);
+        }
+        store.insertAll(newEmployees);
+
+        for (Employee created : newEmployees) {
+            Employee employee = created.copy();
+            idAllocator.markUsed(employee.getEmployeeId());
+            rowById.put(employee.getEmployeeId(), employees.size());
+            employees.add(employee);
+            byId.put(employee.getEmployeeId(), employee);
+        }
+    }
+
+    // Not synchronized: callers wait on the group commit, not on the repository
+    @Override
+    public void update(Employee employee) throws IOException {
+        if (!exists(employee.getEmployeeId())) {
+            throw new IllegalArgumentException("No employee found with ID " + employee.getEmployeeId());
+        }
+        updates.submit(employee);
+    }
+
+    @Override
+    public synchronized void updateAll(List<Employee> changed) throws IOException {
+        for (Employee employee : changed) {
+            if (!rowById.containsKey(employee.getEmployeeId())) {
+                throw new IllegalArgumentException("No employee found with ID " + employee.getEmployeeId());
+            }
+        }
+        store.updateAll(changed);
+
+        for (Employee saved : changed) {
+            Employee employee = saved.copy();
+            int row = rowById.get(employee.getEmployeeId());
+            employees.set(row, employee);
+            byId.put(employee.getEmployeeId(), employee);
+        }
+    }
+
+    // Checked before the store write, so the store and the cache never disagree over a bad ID
+    private static void checkNewId(Employee employee) {
+        if (employee.getEmployeeId() < 1) {
+            throw new IllegalArgumentException("Employee IDs must be positive: " + employee.getEmployeeId());
+        }
+    }
+}
@@ -0,0 +1,61 @@
+// Itemised monthly deductions for one employee, computed from a single monthly earnings figure.
+// All amounts are in cents (see Money), so the deductions and net pay add up exactly.
+public class DeductionBreakdown {
+    private final long monthlyEarnings;
+    private final long healthInsurance;
+    private final long unionFees;
+    private final long prsi;
+    private final long usc;
+    private final long incomeTax;
+
+    public DeductionBreakdown(long monthlyEarnings, long healthInsurance, long unionFees,
+                              long prsi, long usc, long incomeTax) {
+        this.monthlyEarnings = monthlyEarnings;
+        this.healthInsurance = healthInsurance;
+        this.unionFees = unionFees;
+        this.prsi = prsi;
+        this.usc = usc;
+        this.incomeTax = incomeTax;
+    }
+
+    public long getMonthlyEarnings() {
+        return monthlyEarnings;
+    }
+
+    public long getHealthInsurance() {
+        return healthInsurance;
+    }
+
+    public long getUnionFees() {
+        return unionFees;
+    }
+
+    public long getPrsi() {
+        return prsi;
+    }
+
+    public long getUsc() {
+        return usc;
+    }
+
+    public long getIncomeTax() {
+        return incomeTax;
+    }
+
+    public long getTotalDeductions() {
+        return healthInsurance + unionFees + prsi + usc + incomeTax;
+    }
+
+    public long getNetPay() {
+        return monthlyEarnings - getTotalDeductions();
+    }
+
+    @Override
+    public String toString() {
+        return "Deductions [Health Insurance: €" + Money.format(healthInsurance) +
+                ", Union Fees: €" + Money.format(unionFees) +
+                ", PRSI: €" + Money.format(prsi) +
+                ", USC: €" + Money.format(usc) +
+                ", Income Tax: €" + Money.format(incomeTax) + "]";
+    }
+}
@@ -1,6 +1,3 @@
-import java.time.LocalDate;
-
-
 /*
 Employees pay the following deductions: Health Insurance, Union Fees, PRSI, USC, and Income Tax.
 
@@ -17,83 +14,72 @@ Employees pay 20% in income tax.
 
 Employees pay 0.8% in union fees, and how much they pay in health insurance is a parameter of the Employee object.
 
+The PRSI, USC, income tax and union fee rates above are the 2024 rows of TaxRates.csv (see TaxRates),
+so a new tax year only needs new rows in that file.
+
+All amounts are whole cents (see Money): monthly earnings are rounded to the cent first, each deduction
+is rounded to the cent once, and net pay is earnings minus the sum of the rounded deductions.
+
  */
 public abstract class DeductionsCalculator {
 
-    // Abstract method to get employee's monthly earnings
+    static final long WEEKS_PER_MONTH_HUNDREDTHS = 433;  // Approximate number of weeks in a month (4.33), in hundredths
+
+    // Abstract method to get employee's monthly earnings, in euros; rounded to the cent before any deduction
     protected abstract double getMonthlyEarnings(Employee employee);
 
     // Method to calculate health insurance
-    protected double calculateHealthInsurance(Employee employee){
-        return employee.getHealthInsuranceRate() / 100 * getMonthlyEarnings(employee);
+    protected long calculateHealthInsurance(Employee employee, long monthlyEarnings){
+        return Money.applyRate(monthlyEarnings, Money.percentToMicros(employee.getHealthInsuranceRate()));
     }
 
     // Method to calculate Union Fees (0.8% of earnings)
-    protected double calculateUnionFees(Employee employee){
-        return 0.008 * getMonthlyEarnings(employee);
+    protected long calculateUnionFees(TaxRates rates, long monthlyEarnings){
+        return Money.applyRate(monthlyEarnings, rates.getUnionFeeRateMicros());
     }
 
     // Method to calculate PRSI
-    protected double calculatePRSI(Employee employee){
-        double monthlyEarnings = getMonthlyEarnings(employee);
-        // Convert monthly earnings to weekly earnings for the PRSI calculation
-        double weeklyEarnings = monthlyEarnings / 4.33;  // Approximate number of weeks in a month
-        if (weeklyEarnings <= 352) {
-            return 0.0;  // No PRSI for earnings <= €352 per week
+    protected long calculatePRSI(TaxRates rates, long monthlyEarnings){
+        // Weekly earnings (monthly / 4.33) at or below the threshold, compared without dividing
+        if (monthlyEarnings * 100 <= rates.getPrsiWeeklyThresholdCents() * WEEKS_PER_MONTH_HUNDREDTHS) {
+            return 0;  // No PRSI for earnings <= €352 per week
         }
-        return 0.041 * monthlyEarnings; // 4.1% PRSI
+        return Money.applyRate(monthlyEarnings, rates.getPrsiRateMicros()); // 4.1% PRSI
     }
 
     // Method to calculate USC
-    protected double calculateUSC(Employee employee){
-        double yearlyEarnings = getMonthlyEarnings(employee) * 12; // Annualize the monthly earnings
-        double usc = 0.0;
-
-        if (yearlyEarnings < 12012) {
-            usc = 0.005 * yearlyEarnings; // 0.5% USC
-        } else if (yearlyEarnings <= 25760) {
-            usc = 0.02 * (yearlyEarnings - 12012) + 0.005 * 12012; // 2% on earnings between €12,012 and €25,760
-        } else if (yearlyEarnings <= 70044) {
-            usc = 0.04 * (yearlyEarnings - 25760) + 0.02 * (25760 - 12012) + 0.005 * 12012; // 4% on earnings between €25,760 and €70,044
-        } else {
-            usc = 0.08 * (yearlyEarnings - 70044) + 0.04 * (70044 - 25760) + 0.02 * (25760 - 12012) + 0.005 * 12012; // 8% on earnings above €70,044
-        }
-
-        return usc / 12; // Convert to monthly USC
+    protected long calculateUSC(TaxRates rates, long monthlyEarnings){
+        long yearlyEarnings = monthlyEarnings * 12; // Annualize the monthly earnings
+        return Money.divide(rates.getUsc().exactTaxFor(yearlyEarnings), 12 * Money.MICROS); // Convert to monthly USC, rounded once
     }
 
     // Method to calculate Income Tax (20%)
-    protected double calculateIncomeTax(Employee employee){
-        return 0.20 * getMonthlyEarnings(employee); // 20% of monthly earnings
+    protected long calculateIncomeTax(TaxRates rates, long monthlyEarnings){
+        return rates.getIncomeTax().taxFor(monthlyEarnings); // 20% of monthly earnings
     }
 
-    // Method to calculate total deductions
-    public double calculateTotalDeductions(Employee employee){
-        double healthInsurance = calculateHealthInsurance(employee);
-        double unionFees = calculateUnionFees(employee);
-        double prsi = calculatePRSI(employee);
-        double usc = calculateUSC(employee);
-        double incomeTax = calculateIncomeTax(employee);
-
-        return healthInsurance + unionFees + prsi + usc + incomeTax;
+    // Computes monthly earnings once and passes them through each deduction
+    public DeductionBreakdown calculateDeductions(Employee employee){
+        return calculateDeductions(employee, TaxRates.current());
     }
 
+    // Same, under the rates of a given tax year (e.g. when regenerating an earlier pay period)
+    public DeductionBreakdown calculateDeductions(Employee employee, TaxRates rates){
+        long monthlyEarnings = Money.toCents(getMonthlyEarnings(employee));
+
+        return new DeductionBreakdown(
+                monthlyEarnings,
+                calculateHealthInsurance(employee, monthlyEarnings),
+                calculateUnionFees(rates, monthlyEarnings),
+                calculatePRSI(rates, monthlyEarnings),
+                calculateUSC(rates, monthlyEarnings),
+                calculateIncomeTax(rates, monthlyEarnings));
+    }
 
-}
-
-class FullTimeEmployeeDeductionsCalculator extends DeductionsCalculator {
-
-    @Override
-    protected double getMonthlyEarnings(Employee employee) {
-        return employee.getSalary() / 12; // Full-time employee gets monthly salary
+    // Method to calculate total deductions, in cents
+    public long calculateTotalDeductions(Employee employee){
+        return calculateDeductions(employee).getTotalDeductions();
     }
-}
 
-class PartTimeEmployeeDeductionsCalculator extends DeductionsCalculator {
 
-    @Override
-    protected double getMonthlyEarnings(Employee employee) {
-        PartTimeEmployee partTimeEmployee = (PartTimeEmployee) employee;
-        return partTimeEmployee.getHourlyRate() * partTimeEmployee.getHoursWorked(); // Part-time employee earns based on hourly rate and hours worked
-    }
 }
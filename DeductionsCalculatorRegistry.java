@@ -0,0 +1,46 @@
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Shared deductions calculators, resolved by employee type and rule set.
+// Calculators hold no per-employee state, so one instance per (rule set, type) serves every employee
+// on every thread. Alternative rule sets (other jurisdictions, union agreements) are added with register().
+public class DeductionsCalculatorRegistry {
+
+    public static final String DEFAULT_RULE_SET = "DEFAULT";
+
+    private static final Map<String, Map<Employee.EmployeeType, DeductionsCalculator>> calculators = new ConcurrentHashMap<>();
+
+    static {
+        register(DEFAULT_RULE_SET, Employee.EmployeeType.FULL_TIME, new FullTimeEmployeeDeductionsCalculator());
+        register(DEFAULT_RULE_SET, Employee.EmployeeType.PART_TIME, new PartTimeEmployeeDeductionsCalculator());
+    }
+
+    private DeductionsCalculatorRegistry() {
+    }
+
+    // Calculator for the employee type under the default rule set
+    public static DeductionsCalculator get(Employee.EmployeeType employeeType) {
+        return get(DEFAULT_RULE_SET, employeeType);
+    }
+
+    public static DeductionsCalculator get(String ruleSet, Employee.EmployeeType employeeType) {
+        Map<Employee.EmployeeType, DeductionsCalculator> byType = calculators.get(ruleSet);
+        DeductionsCalculator calculator = byType == null ? null : byType.get(employeeType);
+        if (calculator == null) {
+            throw new IllegalArgumentException("No deductions calculator registered for " + employeeType + " in rule set " + ruleSet);
+        }
+        return calculator;
+    }
+
+    // Registers (or replaces) the calculator for an employee type in a rule set
+    public static void register(String ruleSet, Employee.EmployeeType employeeType, DeductionsCalculator calculator) {
+        calculators.compute(ruleSet, (name, existing) -> {
+            // Copy on write so readers never see a map being modified
+            Map<Employee.EmployeeType, DeductionsCalculator> byType = existing == null
+                    ? new EnumMap<>(Employee.EmployeeType.class) : new EnumMap<>(existing);
+            byType.put(employeeType, calculator);
+            return byType;
+        });
+    }
+}
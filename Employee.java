@@ -33,7 +33,7 @@ public class Employee {
         this.lastPromotionDate = lastPromotionDate;
         this.healthInsuranceRate = healthInsuranceRate;
         this.payslips = new ArrayList<>();  // Initialize the payslips list
-        this.deductionsCalculator = new FullTimeEmployeeDeductionsCalculator();  // Set the appropriate deductions calculator
+        this.deductionsCalculator = DeductionsCalculatorRegistry.get(calculatorType());  // Shared calculator for this class
 
     }
 
@@ -55,6 +55,12 @@ public class Employee {
         this.deductionsCalculator = deductionsCalculator;
     }
 
+    // The calculator follows the class, not the employeeType field: the part-time calculator reads the hours
+    // and hourly rate only a PartTimeEmployee has, so a plain Employee always gets the full-time one
+    private EmployeeType calculatorType() {
+        return this instanceof PartTimeEmployee ? EmployeeType.PART_TIME : EmployeeType.FULL_TIME;
+    }
+
 
     public int getEmployeeId() {
         return employeeId;
@@ -149,6 +155,26 @@ public class Employee {
     }
 
 
+    // Independent copy, so a change can be prepared and saved without touching a shared instance
+    public Employee copy() {
+        Employee copy = new Employee(name, employeeId, employeeType, employeePosition, salary, salaryPoint,
+                lastPromotionDate, healthInsuranceRate);
+        copyStateTo(copy);
+        return copy;
+    }
+
+    protected void copyStateTo(Employee copy) {
+        copy.name = name;
+        copy.employeeType = employeeType;
+        copy.employeePosition = employeePosition;
+        copy.salary = salary;
+        copy.salaryPoint = salaryPoint;
+        copy.lastPromotionDate = lastPromotionDate;
+        copy.healthInsuranceRate = healthInsuranceRate;
+        copy.deductionsCalculator = deductionsCalculator;
+        copy.payslips = new ArrayList<>(payslips);
+    }
+
     // Get an employee by their ID
     public static Employee getEmployeeById(List<Employee> employees, int employeeId) {
         for (Employee employee : employees) {
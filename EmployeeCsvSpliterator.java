@@ -0,0 +1,165 @@
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.BitSet;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/*
+Streams the roster out of Employees.csv one employee at a time, joining each part-time employee to its
+row in PartTimeEmployees.csv as it goes, so a payroll run can start on the first employee before the
+last one has been read and never holds the whole roster in memory.
+
+Both files are read forward with a MappedCsvReader. The part-time file is only read as far as the
+current employee needs: rows passed over on the way are kept until their employee turns up, and
+removed once joined. When both files list employees in the same order (as every export does) that
+leaves nothing buffered; files in different orders still join correctly, buffering at most the whole
+part-time file, as CSVHandler.readEmployeesFromCSV does. The result is the same employees in the same
+order as readEmployeesFromCSV: part-time employees without a part-time row are skipped, and if an ID
+appears more than once in the part-time file the first row wins. The one difference is a part-time ID
+repeated in Employees.csv, which only the first of its rows is joined for (the employee store never
+exports duplicate IDs).
+
+The source is sequential (trySplit returns null); PayrollRun parallelizes the computation instead.
+Close it when done to release the mapped files. Read errors are thrown as UncheckedIOException.
+ */
+public final class EmployeeCsvSpliterator implements Spliterator<Employee>, Closeable {
+
+    private static final Employee.EmployeeType[] EMPLOYEE_TYPES = Employee.EmployeeType.values();
+    private static final int MAX_BITMAP_ID = 1 << 24; // as in EmployeeIdAllocator: 2 MiB of bitmap at most
+
+    private final File employeesFile;
+    private final File partTimeFile;
+    private final MappedCsvReader employees;
+    private final MappedCsvReader partTime;
+    private final LocalDate loadDate = LocalDate.now();
+
+    // Part-time rows read ahead of their employee, by employee ID
+    private final IntHashMap<CSVHandler.PartTimeRecord> pending = new IntHashMap<>();
+    // IDs already joined, so a repeated part-time row is never used: a bitmap up to MAX_BITMAP_ID and a hash
+    // set for the rest, like EmployeeIdAllocator, so one outlying ID cannot make the bitmap huge
+    private final BitSet joined = new BitSet();
+    private final IntHashMap<Boolean> joinedOutsideBitmap = new IntHashMap<>();
+    private boolean partTimeExhausted;
+
+    public EmployeeCsvSpliterator() throws IOException {
+        this(new File("Employees.csv"), new File("PartTimeEmployees.csv"));
+    }
+
+    public EmployeeCsvSpliterator(File employeesFile, File partTimeFile) throws IOException {
+        this.employeesFile = employeesFile;
+        this.partTimeFile = partTimeFile;
+        this.employees = new MappedCsvReader(employeesFile);
+        try {
+            this.partTime = new MappedCsvReader(partTimeFile);
+        } catch (IOException e) {
+            employees.close();
+            throw e;
+        }
+        try {
+            employees.nextRow(); // Skip the header lines
+            partTime.nextRow();
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Employee> action) {
+        try {
+            while (employees.nextRow()) {
+                String name = employees.nextString();
+                int employeeId = employees.nextInt();
+                Employee.EmployeeType employeeType = employees.nextEnum(EMPLOYEE_TYPES);
+                String employeePosition = employees.nextString();
+                double salary = employees.nextDouble();
+                int salaryPoint = employees.nextInt();
+                LocalDate lastPromotionDate = employees.nextDate();
+                double healthInsuranceRate = employees.nextDouble();
+
+                if (employeeType == Employee.EmployeeType.PART_TIME) {
+                    CSVHandler.PartTimeRecord record = partTimeRecord(employeeId);
+                    if (record == null) {
+                        continue; // No part-time row: skipped, as in readEmployeesFromCSV
+                    }
+                    action.accept(new PartTimeEmployee(name, employeeId, employeePosition,
+                            record.hourlyRate, record.hoursWorked, loadDate, record.paymentRequestSubmitted));
+                } else {
+                    action.accept(new Employee(name, employeeId, employeeType, employeePosition,
+                            salary, salaryPoint, lastPromotionDate, healthInsuranceRate));
+                }
+                return true;
+            }
+            return false;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error reading " + employeesFile.getName() + " or "
+                    + partTimeFile.getName() + ": " + e.getMessage(), e);
+        }
+    }
+
+    // Reads the part-time file forward until it reaches the given employee's row
+    private CSVHandler.PartTimeRecord partTimeRecord(int employeeId) throws IOException {
+        CSVHandler.PartTimeRecord record = pending.remove(employeeId);
+        if (record == null && !isJoined(employeeId)) {
+            while (!partTimeExhausted) {
+                if (!partTime.nextRow()) {
+                    partTimeExhausted = true;
+                    break;
+                }
+                int id = partTime.nextInt();
+                if (isJoined(id)) {
+                    continue; // A repeat of a row that has already been used
+                }
+                CSVHandler.PartTimeRecord row = new CSVHandler.PartTimeRecord(
+                        partTime.nextDouble(), partTime.nextInt(), partTime.nextBoolean());
+                if (id == employeeId) {
+                    record = row;
+                    break;
+                }
+                pending.putIfAbsent(id, row);
+            }
+        }
+        if (record != null) {
+            if (employeeId >= 0 && employeeId <= MAX_BITMAP_ID) {
+                joined.set(employeeId);
+            } else {
+                joinedOutsideBitmap.put(employeeId, Boolean.TRUE);
+            }
+        }
+        return record;
+    }
+
+    private boolean isJoined(int employeeId) {
+        if (employeeId >= 0 && employeeId <= MAX_BITMAP_ID) {
+            return joined.get(employeeId);
+        }
+        return joinedOutsideBitmap.containsKey(employeeId);
+    }
+
+    @Override
+    public Spliterator<Employee> trySplit() {
+        return null;
+    }
+
+    @Override
+    public long estimateSize() {
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            employees.close();
+        } finally {
+            partTime.close();
+        }
+    }
+}
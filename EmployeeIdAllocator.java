@@ -0,0 +1,108 @@
+import java.util.BitSet;
+import java.util.List;
+
+// Hands out the lowest unused employee ID without scanning the roster.
+// Used IDs are tracked in a bitmap and a cursor points at the lowest free one, so allocation is
+// amortized O(1). IDs are reserved as soon as they are handed out, so concurrent creates never get
+// the same ID. The state is rebuilt from the employee store on startup.
+// The bitmap only covers IDs up to MAX_BITMAP_ID (2 MiB at most); the few IDs above it, e.g. imported
+// from another system, are kept in a hash set instead.
+public class EmployeeIdAllocator {
+
+    private static final int MAX_BITMAP_ID = 1 << 24;
+
+    private final BitSet used = new BitSet();
+    private final IntHashMap<Boolean> usedAboveBitmap = new IntHashMap<>();
+    private long lowestFree = 1; // Past Integer.MAX_VALUE once every ID is taken
+
+    public EmployeeIdAllocator() {
+    }
+
+    // Employees with an ID below 1 (which older rosters can contain) are loaded, but take no ID from the allocator
+    public static EmployeeIdAllocator fromEmployees(List<Employee> employees) {
+        EmployeeIdAllocator allocator = new EmployeeIdAllocator();
+        for (Employee employee : employees) {
+            if (employee.getEmployeeId() < 1) {
+                System.out.println("Warning: employee " + employee.getName() + " has a non-positive ID ("
+                        + employee.getEmployeeId() + ").");
+                continue;
+            }
+            allocator.markUsed(employee.getEmployeeId());
+        }
+        return allocator;
+    }
+
+    // Reserves and returns the lowest free ID
+    public synchronized int allocate() {
+        if (lowestFree > Integer.MAX_VALUE) {
+            throw new IllegalStateException("No employee IDs left.");
+        }
+        int id = (int) lowestFree;
+        set(id);
+        lowestFree = nextFree(id + 1L);
+        return id;
+    }
+
+    // Reserves the lowest count free IDs in one call
+    public synchronized int[] allocateBlock(int count) {
+        int[] ids = new int[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = allocate();
+        }
+        return ids;
+    }
+
+    // Records an ID that was assigned elsewhere, e.g. when loading existing employees
+    public synchronized void markUsed(int employeeId) {
+        if (employeeId < 1) {
+            throw new IllegalArgumentException("Employee IDs must be positive: " + employeeId);
+        }
+        set(employeeId);
+        if (employeeId == lowestFree) {
+            lowestFree = nextFree(employeeId + 1L);
+        }
+    }
+
+    // Returns a reserved ID that ended up not being used
+    public synchronized void release(int employeeId) {
+        if (employeeId < 1) {
+            return;
+        }
+        if (employeeId <= MAX_BITMAP_ID) {
+            used.clear(employeeId);
+        } else {
+            usedAboveBitmap.remove(employeeId);
+        }
+        lowestFree = Math.min(lowestFree, employeeId);
+    }
+
+    public synchronized boolean isUsed(int employeeId) {
+        if (employeeId < 1) {
+            return false;
+        }
+        return employeeId <= MAX_BITMAP_ID ? used.get(employeeId) : usedAboveBitmap.containsKey(employeeId);
+    }
+
+    private void set(int employeeId) {
+        if (employeeId <= MAX_BITMAP_ID) {
+            used.set(employeeId);
+        } else {
+            usedAboveBitmap.put(employeeId, Boolean.TRUE);
+        }
+    }
+
+    // Lowest free ID at or after from; a long so that running past Integer.MAX_VALUE cannot wrap around
+    private long nextFree(long from) {
+        if (from <= MAX_BITMAP_ID) {
+            int clear = used.nextClearBit((int) from);
+            if (clear <= MAX_BITMAP_ID) {
+                return clear;
+            }
+            from = MAX_BITMAP_ID + 1L;
+        }
+        while (from <= Integer.MAX_VALUE && usedAboveBitmap.containsKey((int) from)) {
+            from++;
+        }
+        return from;
+    }
+}
@@ -0,0 +1,72 @@
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Striped per-employee locks. Every change to an employee, and every write of it to storage, happens
+// while holding the lock for its ID, so two updates to one employee never interleave, while updates to
+// different employees only share a lock when their IDs land on the same stripe. Locking by ID rather
+// than on the Employee object keeps working when the repository swaps in a new instance.
+public class EmployeeLocks {
+
+    private static final EmployeeLocks DEFAULT =
+            new EmployeeLocks(Runtime.getRuntime().availableProcessors() * 16);
+
+    private final ReentrantLock[] stripes;
+    private final int mask;
+
+    // The stripe count is rounded up to a power of two
+    public EmployeeLocks(int stripeCount) {
+        int size = Integer.highestOneBit(Math.max(stripeCount, 1) - 1) << 1;
+        stripes = new ReentrantLock[Math.max(size, 1)];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        mask = stripes.length - 1;
+    }
+
+    // Shared by everything that changes employees in this process
+    public static EmployeeLocks getDefault() {
+        return DEFAULT;
+    }
+
+    public ReentrantLock lockFor(int employeeId) {
+        return stripes[stripe(employeeId)];
+    }
+
+    // Locks the stripes of all the given employees, each once and in stripe order, so two threads
+    // locking overlapping sets cannot deadlock. Returns the locks held, for unlockAll.
+    public ReentrantLock[] lockAll(int[] employeeIds) {
+        int[] indexes = new int[employeeIds.length];
+        for (int i = 0; i < employeeIds.length; i++) {
+            indexes[i] = stripe(employeeIds[i]);
+        }
+        int[] distinct = Arrays.stream(indexes).sorted().distinct().toArray();
+
+        ReentrantLock[] held = new ReentrantLock[distinct.length];
+        for (int i = 0; i < distinct.length; i++) {
+            held[i] = stripes[distinct[i]];
+            held[i].lock();
+        }
+        return held;
+    }
+
+    public static void unlockAll(ReentrantLock[] held) {
+        for (int i = held.length - 1; i >= 0; i--) {
+            held[i].unlock();
+        }
+    }
+
+    public int getStripeCount() {
+        return stripes.length;
+    }
+
+    // Spreads sequential IDs across the stripes (murmur3 finalizer, as in IntHashMap)
+    private int stripe(int employeeId) {
+        int h = employeeId;
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h & mask;
+    }
+}
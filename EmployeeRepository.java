@@ -0,0 +1,43 @@
+import java.io.IOException;
+import java.util.List;
+
+// Access to the roster without reloading it: lookups are served from memory,
+// and changes are written through to persistent storage.
+public interface EmployeeRepository {
+
+    // A copy to change and pass to update(); throws IllegalArgumentException if there is no employee with this ID
+    Employee findById(int employeeId);
+
+    boolean exists(int employeeId);
+
+    // All employees in storage order, for reading only
+    List<Employee> findAll();
+
+    int size();
+
+    // Reserves the lowest ID not yet assigned to an employee
+    int allocateEmployeeId();
+
+    // Reserves the lowest count unassigned IDs, e.g. for a bulk import
+    int[] allocateEmployeeIds(int count);
+
+    // Returns a reserved ID that was not used to create an employee
+    void releaseEmployeeId(int employeeId);
+
+    void create(Employee employee) throws IOException;
+
+    // Creates a batch of employees with a single write to storage
+    void createAll(List<Employee> employees) throws IOException;
+
+    // Persists changes to an employee, including a change of position or type.
+    // Hold the employee's lock (see EmployeeLocks) across the change and this call.
+    void update(Employee employee) throws IOException;
+
+    // Persists changes to a batch of employees with a single write to storage
+    void updateAll(List<Employee> employees) throws IOException;
+
+    // Repository over the default employee store, loaded once per process
+    static EmployeeRepository getDefault() throws IOException {
+        return CachedEmployeeRepository.getDefault();
+    }
+}
@@ -0,0 +1,719 @@
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/*
+Binary employee store with fixed-width records, so a single employee can be updated in place.
+
+Employees.db layout:
+  header (64 bytes): magic, version, last-modified times of Employees.csv and PartTimeEmployees.csv
+                     as of the last import/export
+  records (RECORD_SIZE bytes each), one per employee, in the order they were imported or inserted
+
+Names and positions are stored inline in their fixed-width field when they fit. Longer text (some
+salary scale categories run to 70 characters) goes to Employees.db.overflow, once per distinct value,
+and the field holds its offset there instead. The overflow file is only appended to, and is forced
+before any log entry that refers to it.
+
+Every record write is first appended to Employees.wal and forced to disk. The data file is only
+forced when the log is checkpointed, and on open any entries left in the log are replayed, so a
+crash part way through a write never leaves a torn record behind.
+
+The store is the system of record while the program runs. The CSV files are imported when they
+have changed on disk since the last sync, and exported again when the program exits. The default
+store also exports them in the background while it is open, so a process that is killed rather than
+closed leaves them behind by a bounded amount: after every EXPORT_CHECKPOINTS checkpoints of the log,
+and every payroll.exportIntervalSeconds (default 60, 0 for exit only) if anything has been written
+since the last export. An export only holds the store's lock while it reads the records, not while
+it writes the files. The export replaces both files together through RosterExport, and the header's
+times are updated before the files are moved, once the export record guarantees the moves will be made.
+
+Only one process may have the store open: Employees.db.lock is locked (FileLock) from open() until
+close(), and a second open() fails at once instead of replaying, and truncating, the other's log.
+ */
+public class EmployeeStore implements Closeable {
+
+    private static final String DATA_FILE = "Employees.db";
+    private static final String WAL_FILE = "Employees.wal";
+    private static final String EMPLOYEES_CSV = "Employees.csv";
+    private static final String PART_TIME_CSV = "PartTimeEmployees.csv";
+
+    private static final int MAGIC = 0x454D5044; // "EMPD"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+
+    private static final int TEXT_FIELD_SIZE = 64; // 2-byte length + up to 62 bytes of UTF-8 or an overflow offset
+    private static final int INLINE_TEXT_BYTES = TEXT_FIELD_SIZE - Short.BYTES;
+    private static final int MAX_TEXT_BYTES = 0xFFFF; // longest name or position
+    private static final String OVERFLOW_SUFFIX = ".overflow";
+    private static final String LOCK_SUFFIX = ".lock";
+    private static final int RECORD_SIZE = 192;
+    private static final int WAL_ENTRY_SIZE = Long.BYTES + RECORD_SIZE + Integer.BYTES;
+    private static final int CHECKPOINT_INTERVAL = 256; // log entries between data file syncs
+    private static final int EXPORT_CHECKPOINTS = 16;   // checkpoints between background CSV exports
+    private static final long EXPORT_INTERVAL_MILLIS =
+            Long.getLong("payroll.exportIntervalSeconds", 60) * 1000;
+
+    private static EmployeeStore defaultStore;
+
+    private final File dataFile;
+    private final File walFile;
+    private final File overflowFile;
+    private final File lockFile;
+    private FileChannel lock; // held while the store is open
+    private RandomAccessFile data;
+    private RandomAccessFile wal;
+    private RandomAccessFile overflow;
+    private int walEntries;
+    private boolean overflowUnsynced;
+
+    // Text stored in the overflow file -> its offset there, and back
+    private Map<String, Long> overflowOffsets = new HashMap<>();
+    private Map<Long, String> overflowTexts = new HashMap<>();
+
+    // Employee ID -> record slot in the data file
+    private IntHashMap<Integer> slots = new IntHashMap<>();
+    private int recordCount;
+
+    // Background CSV export (default store only)
+    private final Object exportLock = new Object();   // one export at a time; taken before the store's lock
+    private final Object exportSignal = new Object(); // wakes the exporter; no other lock is taken inside it
+    private Thread exporter;
+    private boolean exportRequested; // guarded by exportSignal
+    private boolean exporterStopped; // guarded by exportSignal
+    private long unexportedWrites;   // guarded by this
+    private int unexportedCheckpoints;
+
+    private EmployeeStore(File dataFile, File walFile) {
+        this.dataFile = dataFile;
+        this.walFile = walFile;
+        this.overflowFile = new File(dataFile.getPath() + OVERFLOW_SUFFIX);
+        this.lockFile = new File(dataFile.getPath() + LOCK_SUFFIX);
+    }
+
+    // Store backed by Employees.db, importing the CSV files first if they changed since the last sync
+    public static synchronized EmployeeStore getDefault() throws IOException {
+        if (defaultStore == null) {
+            EmployeeStore store = open(new File(DATA_FILE), new File(WAL_FILE));
+            RosterExport.recover(new File(EMPLOYEES_CSV), new File(PART_TIME_CSV)); // An interrupted export counts too
+            if (store.isCsvModifiedSinceSync()) {
+                store.importFromCSV();
+            }
+            store.startExporter();
+            defaultStore = store;
+        }
+        return defaultStore;
+    }
+
+    public static EmployeeStore open(File dataFile, File walFile) throws IOException {
+        EmployeeStore store = new EmployeeStore(dataFile, walFile);
+        store.lock();
+        try {
+            store.openFiles();
+        } catch (IOException | RuntimeException e) {
+            store.closeFiles();
+            store.unlock();
+            throw e;
+        }
+        return store;
+    }
+
+    public synchronized Employee get(int employeeId) throws IOException {
+        Integer slot = slots.get(employeeId);
+        if (slot == null) {
+            throw new IllegalArgumentException("No employee found with ID " + employeeId);
+        }
+        return readRecord(slot);
+    }
+
+    public synchronized boolean contains(int employeeId) {
+        return slots.containsKey(employeeId);
+    }
+
+    public synchronized int size() {
+        return recordCount;
+    }
+
+    // All employees in storage order
+    public synchronized List<Employee> readAll() throws IOException {
+        List<Employee> employees = new ArrayList<>(recordCount);
+        data.seek(HEADER_SIZE);
+        byte[] record = new byte[RECORD_SIZE];
+        for (int slot = 0; slot < recordCount; slot++) {
+            data.readFully(record);
+            employees.add(decode(ByteBuffer.wrap(record)));
+        }
+        return employees;
+    }
+
+    // Overwrites the stored record for an existing employee
+    public synchronized void update(Employee employee) throws IOException {
+        Integer slot = slots.get(employee.getEmployeeId());
+        if (slot == null) {
+            throw new IllegalArgumentException("No employee found with ID " + employee.getEmployeeId());
+        }
+        writeRecord(slot, encode(employee));
+    }
+
+    // Overwrites the stored records for a batch of existing employees with a single log sync.
+    // If an employee appears more than once, the last occurrence is stored.
+    public synchronized void updateAll(List<Employee> employees) throws IOException {
+        int[] recordSlots = new int[employees.size()];
+        byte[][] records = new byte[employees.size()][];
+        for (int i = 0; i < records.length; i++) {
+            Employee employee = employees.get(i);
+            Integer slot = slots.get(employee.getEmployeeId());
+            if (slot == null) {
+                throw new IllegalArgumentException("No employee found with ID " + employee.getEmployeeId());
+            }
+            recordSlots[i] = slot;
+            records[i] = encode(employee);
+        }
+        writeRecords(recordSlots, records);
+    }
+
+    // Appends a record for a new employee
+    public synchronized void insert(Employee employee) throws IOException {
+        if (slots.containsKey(employee.getEmployeeId())) {
+            throw new IllegalArgumentException("Employee with ID " + employee.getEmployeeId() + " already exists.");
+        }
+        int slot = recordCount;
+        writeRecord(slot, encode(employee));
+        slots.put(employee.getEmployeeId(), slot);
+        recordCount++;
+    }
+
+    // Appends records for a batch of new employees with a single log sync
+    public synchronized void insertAll(List<Employee> employees) throws IOException {
+        IntHashMap<Boolean> batchIds = new IntHashMap<>(employees.size());
+        byte[][] records = new byte[employees.size()][];
+        for (int i = 0; i < records.length; i++) {
+            int employeeId = employees.get(i).getEmployeeId();
+            if (slots.containsKey(employeeId) || batchIds.putIfAbsent(employeeId, Boolean.TRUE) != null) {
+                throw new IllegalArgumentException("Employee with ID " + employeeId + " already exists.");
+            }
+            records[i] = encode(employees.get(i));
+        }
+
+        writeRecords(recordCount, records);
+        for (Employee employee : employees) {
+            slots.put(employee.getEmployeeId(), recordCount++);
+        }
+    }
+
+    // True if either CSV file has been changed on disk since it was last imported or exported
+    public synchronized boolean isCsvModifiedSinceSync() throws IOException {
+        data.seek(2 * Integer.BYTES);
+        long employeesModified = data.readLong();
+        long partTimeModified = data.readLong();
+        return new File(EMPLOYEES_CSV).lastModified() != employeesModified
+                || new File(PART_TIME_CSV).lastModified() != partTimeModified;
+    }
+
+    // Replaces the store contents with the employees in Employees.csv and PartTimeEmployees.csv
+    public synchronized void importFromCSV() throws IOException {
+        checkpoint(); // The log only holds writes to the contents being replaced
+        long employeesModified = new File(EMPLOYEES_CSV).lastModified();
+        long partTimeModified = new File(PART_TIME_CSV).lastModified();
+        List<Employee> employees = CSVHandler.readEmployeesFromMappedCSV();
+
+        File tempFile = new File(dataFile.getPath() + ".tmp");
+        try (RandomAccessFile out = new RandomAccessFile(tempFile, "rw")) {
+            out.setLength(0);
+            out.write(encodeHeader(employeesModified, partTimeModified));
+            IntHashMap<Integer> seen = new IntHashMap<>(employees.size());
+            for (Employee employee : employees) {
+                if (seen.putIfAbsent(employee.getEmployeeId(), seen.size()) == null) {
+                    out.write(encode(employee));
+                }
+            }
+            syncOverflow();
+            out.getFD().sync();
+        }
+
+        closeFiles();
+        Files.move(tempFile.toPath(), dataFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        openFiles();
+        System.out.println("Imported " + recordCount + " employees into " + dataFile.getName() + ".");
+    }
+
+    // Writes the store back out as Employees.csv and PartTimeEmployees.csv
+    public void exportToCSV() throws IOException {
+        exportToCSV(new ArrayList<>());
+    }
+
+    // Same, with changes that never made it into the store (e.g. after repeated write failures) in place of
+    // the stored employees they change. The store is then left out of step with the CSV files, so the next
+    // getDefault() imports them and the changes reach the store after all.
+    public void exportToCSV(List<Employee> unsaved) throws IOException {
+        synchronized (exportLock) {
+            List<Employee> employees;
+            synchronized (this) {
+                checkpoint();
+                employees = readAll();
+                unexportedWrites = 0;
+                unexportedCheckpoints = 0;
+            }
+            export(employees, unsaved);
+        }
+    }
+
+    // Called holding exportLock but not the store's lock, so writes go on while the files are written
+    private void export(List<Employee> employees, List<Employee> unsaved) throws IOException {
+        if (!unsaved.isEmpty()) {
+            IntHashMap<Employee> changes = new IntHashMap<>(unsaved.size());
+            for (Employee employee : unsaved) {
+                changes.put(employee.getEmployeeId(), employee);
+            }
+            for (int i = 0; i < employees.size(); i++) {
+                Employee change = changes.get(employees.get(i).getEmployeeId());
+                if (change != null) {
+                    employees.set(i, change);
+                }
+            }
+        }
+        // The sync times are recorded once the export has committed to moving the files into place, so a
+        // crash can leave the store and the CSV files out of step only by an import of what was just exported
+        CSVHandler.writeEmployeesToCSV(employees, (employeesModified, partTimeModified) -> {
+            if (unsaved.isEmpty()) { // Otherwise keep the old sync times, so the CSV files count as changed
+                synchronized (this) {
+                    data.seek(2 * Integer.BYTES);
+                    data.writeLong(employeesModified);
+                    data.writeLong(partTimeModified);
+                    data.getFD().sync();
+                }
+            }
+        });
+    }
+
+    @Override
+    public void close() throws IOException {
+        stopExporter(); // Not holding the store's lock, which an export in progress may be waiting for
+        synchronized (this) {
+            try {
+                checkpoint();
+                closeFiles();
+            } finally {
+                unlock();
+            }
+            if (defaultStore == this) {
+                defaultStore = null;
+            }
+        }
+    }
+
+    private void startExporter() {
+        if (EXPORT_INTERVAL_MILLIS <= 0) {
+            return;
+        }
+        exporter = new Thread(this::exportLoop, "payroll-csv-export");
+        exporter.setDaemon(true); // An export cut short by exit is finished by RosterExport.recover
+        exporter.start();
+    }
+
+    private void stopExporter() {
+        if (exporter == null) {
+            return;
+        }
+        synchronized (exportSignal) {
+            exporterStopped = true;
+            exportSignal.notifyAll();
+        }
+        boolean interrupted = false;
+        while (exporter.isAlive()) {
+            try {
+                exporter.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Exports when enough checkpoints ask for it, or when the interval passes with writes not yet exported
+    private void exportLoop() {
+        while (true) {
+            synchronized (exportSignal) {
+                try {
+                    if (!exportRequested && !exporterStopped) {
+                        exportSignal.wait(EXPORT_INTERVAL_MILLIS);
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                }
+                exportRequested = false;
+                if (exporterStopped) {
+                    return;
+                }
+            }
+
+            synchronized (exportLock) {
+                try {
+                    List<Employee> employees;
+                    synchronized (this) {
+                        if (unexportedWrites == 0) {
+                            continue;
+                        }
+                        checkpoint();
+                        employees = readAll();
+                        unexportedWrites = 0;
+                        unexportedCheckpoints = 0;
+                    }
+                    export(employees, List.of());
+                } catch (IOException | RuntimeException e) {
+                    System.err.println("Error exporting the employee store to the CSV files: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    // Called with the store's lock held after a checkpoint
+    private void requestExportIfDue() {
+        if (exporter != null && ++unexportedCheckpoints >= EXPORT_CHECKPOINTS) {
+            unexportedCheckpoints = 0;
+            synchronized (exportSignal) {
+                exportRequested = true;
+                exportSignal.notifyAll();
+            }
+        }
+    }
+
+    // Locks the store against every other opener, in this process or another, without waiting
+    private void lock() throws IOException {
+        FileChannel channel = FileChannel.open(lockFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock held;
+        try {
+            held = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            held = null; // Already open in this process
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        if (held == null) {
+            channel.close();
+            throw new IOException(dataFile.getName() + " is in use (is the payroll server running?)");
+        }
+        lock = channel;
+    }
+
+    private void unlock() throws IOException {
+        if (lock != null) {
+            lock.close(); // Releases the lock
+            lock = null;
+        }
+    }
+
+    private void openFiles() throws IOException {
+        data = new RandomAccessFile(dataFile, "rw");
+        if (data.length() < HEADER_SIZE) {
+            data.setLength(0);
+            data.write(encodeHeader(0L, 0L));
+            data.getFD().sync();
+        } else {
+            data.seek(0);
+            if (data.readInt() != MAGIC || data.readInt() != VERSION) {
+                data.close();
+                throw new IOException(dataFile.getName() + " is not a version " + VERSION + " employee store.");
+            }
+        }
+
+        overflow = new RandomAccessFile(overflowFile, "rw");
+        loadOverflow();
+        wal = new RandomAccessFile(walFile, "rw");
+        replayWal();
+        buildIndex();
+    }
+
+    private void closeFiles() throws IOException {
+        if (wal != null) {
+            wal.close();
+        }
+        if (overflow != null) {
+            overflow.close();
+        }
+        if (data != null) {
+            data.close();
+        }
+    }
+
+    // Reads every complete, checksummed overflow entry; a torn final entry, never referred to by a
+    // logged record, is cut off
+    private void loadOverflow() throws IOException {
+        byte[] contents = new byte[(int) overflow.length()];
+        overflow.seek(0);
+        overflow.readFully(contents);
+        ByteBuffer buffer = ByteBuffer.wrap(contents);
+        overflowOffsets = new HashMap<>();
+        overflowTexts = new HashMap<>();
+        CRC32 crc = new CRC32();
+        while (buffer.remaining() >= 2 * Integer.BYTES) {
+            int offset = buffer.position();
+            int length = buffer.getInt();
+            int expectedCrc = buffer.getInt();
+            if (length < 0 || length > buffer.remaining()) {
+                buffer.position(offset);
+                break;
+            }
+            crc.reset();
+            crc.update(contents, buffer.position(), length);
+            if ((int) crc.getValue() != expectedCrc) {
+                buffer.position(offset);
+                break;
+            }
+            String text = new String(contents, buffer.position(), length, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+            overflowOffsets.put(text, (long) offset);
+            overflowTexts.put((long) offset, text);
+        }
+        if (buffer.position() < contents.length) {
+            overflow.setLength(buffer.position());
+        }
+        overflowUnsynced = false;
+    }
+
+    // Offset of the text in the overflow file, appending it if it is not there yet
+    private long overflowOffset(String text, byte[] bytes) throws IOException {
+        Long offset = overflowOffsets.get(text);
+        if (offset == null) {
+            offset = overflow.length();
+            CRC32 crc = new CRC32();
+            crc.update(bytes);
+            ByteBuffer entry = ByteBuffer.allocate(2 * Integer.BYTES + bytes.length);
+            entry.putInt(bytes.length).putInt((int) crc.getValue()).put(bytes);
+            overflow.seek(offset);
+            overflow.write(entry.array());
+            overflowOffsets.put(text, offset);
+            overflowTexts.put(offset, text);
+            overflowUnsynced = true;
+        }
+        return offset;
+    }
+
+    private void syncOverflow() throws IOException {
+        if (overflowUnsynced) {
+            overflow.getFD().sync();
+            overflowUnsynced = false;
+        }
+    }
+
+    // Rebuilds the ID -> slot index from the data file
+    private void buildIndex() throws IOException {
+        recordCount = (int) ((data.length() - HEADER_SIZE) / RECORD_SIZE);
+        slots = new IntHashMap<>(recordCount);
+        for (int slot = 0; slot < recordCount; slot++) {
+            data.seek(recordOffset(slot));
+            slots.put(data.readInt(), slot);
+        }
+    }
+
+    private Employee readRecord(int slot) throws IOException {
+        byte[] record = new byte[RECORD_SIZE];
+        data.seek(recordOffset(slot));
+        data.readFully(record);
+        return decode(ByteBuffer.wrap(record));
+    }
+
+    // Logs the record, then writes it to its slot in the data file
+    private void writeRecord(int slot, byte[] record) throws IOException {
+        writeRecords(slot, new byte[][]{record});
+    }
+
+    // Logs the records for consecutive slots with a single sync, then writes them to the data file
+    private void writeRecords(int firstSlot, byte[][] records) throws IOException {
+        int[] recordSlots = new int[records.length];
+        for (int i = 0; i < records.length; i++) {
+            recordSlots[i] = firstSlot + i;
+        }
+        writeRecords(recordSlots, records);
+    }
+
+    // Logs the records with a single sync, then writes each to its slot in the data file,
+    // one write per run of consecutive slots. Entries are replayed in order, so a later record for
+    // the same slot wins.
+    private void writeRecords(int[] recordSlots, byte[][] records) throws IOException {
+        ByteBuffer entries = ByteBuffer.allocate(records.length * WAL_ENTRY_SIZE);
+        CRC32 crc = new CRC32();
+        for (int i = 0; i < records.length; i++) {
+            int start = entries.position();
+            entries.putLong(recordOffset(recordSlots[i]));
+            entries.put(records[i]);
+            crc.reset();
+            crc.update(entries.array(), start, Long.BYTES + RECORD_SIZE);
+            entries.putInt((int) crc.getValue());
+        }
+
+        syncOverflow(); // Before any log entry can refer to it
+        wal.seek(wal.length());
+        wal.write(entries.array());
+        wal.getFD().sync();
+
+        int runStart = 0;
+        for (int i = 1; i <= records.length; i++) {
+            if (i == records.length || recordSlots[i] != recordSlots[i - 1] + 1) {
+                byte[] block = new byte[(i - runStart) * RECORD_SIZE];
+                for (int j = runStart; j < i; j++) {
+                    System.arraycopy(records[j], 0, block, (j - runStart) * RECORD_SIZE, RECORD_SIZE);
+                }
+                data.seek(recordOffset(recordSlots[runStart]));
+                data.write(block);
+                runStart = i;
+            }
+        }
+
+        walEntries += records.length;
+        unexportedWrites += records.length;
+        if (walEntries >= CHECKPOINT_INTERVAL) {
+            checkpoint();
+            requestExportIfDue();
+        }
+    }
+
+    // Forces the data file to disk, after which the log entries are no longer needed
+    private void checkpoint() throws IOException {
+        if (wal.length() == 0) {
+            return;
+        }
+        data.getFD().sync();
+        wal.setLength(0);
+        wal.getFD().sync();
+        walEntries = 0;
+    }
+
+    // Re-applies every complete, checksummed entry in the log; a torn final entry is ignored
+    private void replayWal() throws IOException {
+        long entries = wal.length() / WAL_ENTRY_SIZE;
+        byte[] entry = new byte[WAL_ENTRY_SIZE];
+        int replayed = 0;
+
+        wal.seek(0);
+        for (long i = 0; i < entries; i++) {
+            wal.readFully(entry);
+            ByteBuffer buffer = ByteBuffer.wrap(entry);
+            long offset = buffer.getLong();
+            CRC32 crc = new CRC32();
+            crc.update(entry, 0, Long.BYTES + RECORD_SIZE);
+            if (buffer.getInt(Long.BYTES + RECORD_SIZE) != (int) crc.getValue()) {
+                break;
+            }
+            data.seek(offset);
+            data.write(entry, Long.BYTES, RECORD_SIZE);
+            replayed++;
+        }
+
+        if (replayed > 0) {
+            System.out.println("Recovered " + replayed + " employee update(s) from " + walFile.getName() + ".");
+        }
+        walEntries = 0;
+        data.getFD().sync();
+        wal.setLength(0);
+        wal.getFD().sync();
+    }
+
+    private static long recordOffset(int slot) {
+        return HEADER_SIZE + (long) slot * RECORD_SIZE;
+    }
+
+    private static byte[] encodeHeader(long employeesModified, long partTimeModified) {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC);
+        header.putInt(VERSION);
+        header.putLong(employeesModified); // Employees.csv last modified at last sync
+        header.putLong(partTimeModified);  // PartTimeEmployees.csv last modified at last sync
+        return header.array();
+    }
+
+    private byte[] encode(Employee employee) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE);
+        buffer.putInt(employee.getEmployeeId());
+        buffer.put((byte) employee.getEmployeeType().ordinal());
+        putText(buffer, employee.getName());
+        putText(buffer, employee.getEmployeePosition());
+        buffer.putDouble(employee.getSalary());
+        buffer.putInt(employee.getSalaryPoint());
+        buffer.putLong(employee.getLastPromotionDate().toEpochDay());
+        buffer.putDouble(employee.getHealthInsuranceRate());
+
+        if (employee instanceof PartTimeEmployee) {
+            PartTimeEmployee partTimeEmployee = (PartTimeEmployee) employee;
+            buffer.putDouble(partTimeEmployee.getHourlyRate());
+            buffer.putInt(partTimeEmployee.getHoursWorked());
+            buffer.put((byte) (partTimeEmployee.isPaymentRequestSubmitted() ? 1 : 0));
+        } else {
+            buffer.putDouble(0);
+            buffer.putInt(0);
+            buffer.put((byte) 0);
+        }
+        return buffer.array();
+    }
+
+    private Employee decode(ByteBuffer buffer) throws IOException {
+        int employeeId = buffer.getInt();
+        Employee.EmployeeType employeeType = Employee.EmployeeType.values()[buffer.get()];
+        String name = getText(buffer);
+        String employeePosition = getText(buffer);
+        double salary = buffer.getDouble();
+        int salaryPoint = buffer.getInt();
+        LocalDate lastPromotionDate = LocalDate.ofEpochDay(buffer.getLong());
+        double healthInsuranceRate = buffer.getDouble();
+        double hourlyRate = buffer.getDouble();
+        int hoursWorked = buffer.getInt();
+        boolean hasSubmittedPaymentRequest = buffer.get() != 0;
+
+        if (employeeType == Employee.EmployeeType.PART_TIME) {
+            return new PartTimeEmployee(name, employeeId, employeePosition, hourlyRate, hoursWorked,
+                    lastPromotionDate, hasSubmittedPaymentRequest);
+        }
+        return new Employee(name, employeeId, employeeType, employeePosition,
+                salary, salaryPoint, lastPromotionDate, healthInsuranceRate);
+    }
+
+    private void putText(ByteBuffer buffer, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_TEXT_BYTES) {
+            throw new IllegalArgumentException("Value is too long to store: " + text);
+        }
+        int start = buffer.position();
+        buffer.putShort((short) bytes.length);
+        if (bytes.length <= INLINE_TEXT_BYTES) {
+            buffer.put(bytes);
+        } else {
+            buffer.putLong(overflowOffset(text, bytes));
+        }
+        buffer.position(start + TEXT_FIELD_SIZE);
+    }
+
+    private String getText(ByteBuffer buffer) throws IOException {
+        int start = buffer.position();
+        int length = Short.toUnsignedInt(buffer.getShort());
+        String text;
+        if (length <= INLINE_TEXT_BYTES) {
+            text = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        } else {
+            long offset = buffer.getLong();
+            text = overflowTexts.get(offset);
+            if (text == null) {
+                throw new IOException(dataFile.getName() + " refers to text missing from " + overflowFile.getName() + ".");
+            }
+        }
+        buffer.position(start + TEXT_FIELD_SIZE);
+        return text;
+    }
+}
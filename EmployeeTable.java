@@ -0,0 +1,209 @@
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+Column-oriented (struct-of-arrays) copy of the roster for bulk payroll computation.
+
+Each employee is a row index into primitive arrays instead of an Employee object, positions are
+dictionary-encoded to int codes, and the monthly deductions for the whole table are computed in
+tight loops over those arrays. Results match DeductionsCalculator exactly: the same cent arithmetic
+(see Money) is applied in the same order.
+
+The loops only reproduce the built-in full-time and part-time calculators. An employee with any other
+calculator (a subclass's own, or one registered in place of a built-in one) is kept as a copy
+and computed through that calculator instead, so every row pays what DeductionsCalculator would.
+ */
+public class EmployeeTable {
+
+    public static final byte FULL_TIME = 0;
+    public static final byte PART_TIME = 1;
+
+    private int size;
+    private int[] ids;
+    private String[] names;
+    private byte[] types;
+    private int[] positionCodes;
+    private double[] salaries;       // annual salary, full-time only
+    private double[] hourlyRates;    // part-time only
+    private int[] hoursWorked;       // part-time only
+    private long[] healthInsuranceRates;  // micros of earnings, as DeductionsCalculator applies them
+
+    // Rows computed by their own calculator rather than the loops, with a copy of their employee
+    private int[] calculatorRows = new int[0];
+    private Employee[] calculatorEmployees = new Employee[0];
+    private int calculatorRowCount;
+
+    private final List<String> positions = new ArrayList<>();
+    private final Map<String, Integer> positionCodeByName = new HashMap<>();
+
+    public EmployeeTable(int capacity) {
+        int initialCapacity = Math.max(capacity, 16);
+        ids = new int[initialCapacity];
+        names = new String[initialCapacity];
+        types = new byte[initialCapacity];
+        positionCodes = new int[initialCapacity];
+        salaries = new double[initialCapacity];
+        hourlyRates = new double[initialCapacity];
+        hoursWorked = new int[initialCapacity];
+        healthInsuranceRates = new long[initialCapacity];
+    }
+
+    public static EmployeeTable fromEmployees(List<Employee> employees) {
+        EmployeeTable table = new EmployeeTable(employees.size());
+        for (Employee employee : employees) {
+            table.add(employee);
+        }
+        return table;
+    }
+
+    // Appends an employee as a new row and returns its row index
+    public int add(Employee employee) {
+        if (size == ids.length) {
+            grow();
+        }
+
+        int row = size++;
+        ids[row] = employee.getEmployeeId();
+        names[row] = employee.getName();
+        positionCodes[row] = encodePosition(employee.getEmployeePosition());
+        salaries[row] = employee.getSalary();
+        healthInsuranceRates[row] = Money.percentToMicros(employee.getHealthInsuranceRate());
+
+        if (employee instanceof PartTimeEmployee) {
+            PartTimeEmployee partTimeEmployee = (PartTimeEmployee) employee;
+            types[row] = PART_TIME;
+            hourlyRates[row] = partTimeEmployee.getHourlyRate();
+            hoursWorked[row] = partTimeEmployee.getHoursWorked();
+        } else {
+            types[row] = FULL_TIME;
+        }
+
+        if (!usesBuiltInCalculator(employee)) {
+            if (calculatorRowCount == calculatorRows.length) {
+                int capacity = Math.max(calculatorRowCount * 2, 16);
+                calculatorRows = Arrays.copyOf(calculatorRows, capacity);
+                calculatorEmployees = Arrays.copyOf(calculatorEmployees, capacity);
+            }
+            calculatorRows[calculatorRowCount] = row;
+            calculatorEmployees[calculatorRowCount] = employee.copy();
+            calculatorRowCount++;
+        }
+        return row;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getEmployeeId(int row) {
+        return ids[row];
+    }
+
+    public String getName(int row) {
+        return names[row];
+    }
+
+    public byte getType(int row) {
+        return types[row];
+    }
+
+    public String getPosition(int row) {
+        return positions.get(positionCodes[row]);
+    }
+
+    public int getPositionCode(int row) {
+        return positionCodes[row];
+    }
+
+    // Number of distinct positions in the dictionary
+    public int getPositionCount() {
+        return positions.size();
+    }
+
+    // Computes monthly gross and net pay in cents for every row into the given arrays (each at least size() long)
+    public void computeMonthlyPay(TaxRates rates, long[] grossPay, long[] netPay) {
+        if (grossPay.length < size || netPay.length < size) {
+            throw new IllegalArgumentException("Output arrays must hold at least " + size + " rows.");
+        }
+
+        // Pass 1: monthly earnings, rounded to the cent
+        for (int i = 0; i < size; i++) {
+            double fullTime = salaries[i] / 12;
+            double partTime = hourlyRates[i] * hoursWorked[i];
+            grossPay[i] = Money.toCents(types[i] == PART_TIME ? partTime : fullTime);
+        }
+
+        // Pass 2: deductions, in the same order as DeductionsCalculator.calculateDeductions
+        BracketTable usc = rates.getUsc();
+        BracketTable incomeTax = rates.getIncomeTax();
+        long unionFeeRate = rates.getUnionFeeRateMicros();
+        long prsiRate = rates.getPrsiRateMicros();
+        long prsiWeeklyThreshold = rates.getPrsiWeeklyThresholdCents();
+
+        for (int i = 0; i < size; i++) {
+            long monthlyEarnings = grossPay[i];
+            long healthInsurance = Money.applyRate(monthlyEarnings, healthInsuranceRates[i]);
+            long unionFees = Money.applyRate(monthlyEarnings, unionFeeRate);
+            long prsi = monthlyEarnings * 100 <= prsiWeeklyThreshold * DeductionsCalculator.WEEKS_PER_MONTH_HUNDREDTHS
+                    ? 0 : Money.applyRate(monthlyEarnings, prsiRate);
+            long monthlyUsc = Money.divide(usc.exactTaxFor(monthlyEarnings * 12), 12 * Money.MICROS);
+            long tax = incomeTax.taxFor(monthlyEarnings);
+
+            netPay[i] = monthlyEarnings - (healthInsurance + unionFees + prsi + monthlyUsc + tax);
+        }
+
+        // Pass 3: rows the loops do not cover, through their own calculator
+        for (int i = 0; i < calculatorRowCount; i++) {
+            Employee employee = calculatorEmployees[i];
+            DeductionBreakdown deductions = employee.getDeductionsCalculator().calculateDeductions(employee, rates);
+            grossPay[calculatorRows[i]] = deductions.getMonthlyEarnings();
+            netPay[calculatorRows[i]] = deductions.getNetPay();
+        }
+    }
+
+    // Computes pay for the whole table and materializes one payslip per row, in row order
+    public Payslip[] generateMonthlyPayslips(TaxRates rates, LocalDate payDate) {
+        long[] grossPay = new long[size];
+        long[] netPay = new long[size];
+        computeMonthlyPay(rates, grossPay, netPay);
+
+        Payslip[] payslips = new Payslip[size];
+        for (int i = 0; i < size; i++) {
+            payslips[i] = new Payslip(ids[i], names[i], payDate, grossPay[i], netPay[i]);
+        }
+        return payslips;
+    }
+
+    // True if the loops compute exactly what the employee's calculator would
+    private static boolean usesBuiltInCalculator(Employee employee) {
+        Class<?> builtIn = employee instanceof PartTimeEmployee
+                ? PartTimeEmployeeDeductionsCalculator.class : FullTimeEmployeeDeductionsCalculator.class;
+        return employee.getDeductionsCalculator().getClass() == builtIn;
+    }
+
+    private int encodePosition(String position) {
+        Integer code = positionCodeByName.get(position);
+        if (code == null) {
+            code = positions.size();
+            positions.add(position);
+            positionCodeByName.put(position, code);
+        }
+        return code;
+    }
+
+    private void grow() {
+        int capacity = ids.length * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        names = Arrays.copyOf(names, capacity);
+        types = Arrays.copyOf(types, capacity);
+        positionCodes = Arrays.copyOf(positionCodes, capacity);
+        salaries = Arrays.copyOf(salaries, capacity);
+        hourlyRates = Arrays.copyOf(hourlyRates, capacity);
+        hoursWorked = Arrays.copyOf(hoursWorked, capacity);
+        healthInsuranceRates = Arrays.copyOf(healthInsuranceRates, capacity);
+    }
+}
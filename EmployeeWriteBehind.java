@@ -0,0 +1,249 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Writes employee updates through to the repository on a background thread, so a caller is answered as
+// soon as the in-memory employee has changed rather than after the store's log has been synced.
+// Everything queued while the previous write was in progress goes to the store as one batch with a
+// single log sync, and an employee updated again before its last change was written is written once,
+// with both changes. The employees' locks (EmployeeLocks) are held while they are written, so whoever
+// changes an employee should hold its lock too; the store then never sees a half-applied change.
+// Until it has been written, getPending() returns the queued change, since the repository does not have it
+// yet.
+//
+// Callers have already been told their change succeeded, so a failed write is not dropped. A batch that
+// fails is written again one employee at a time, so one bad record cannot hold back the rest. Changes
+// that failed with an I/O error go back on the queue, unless a newer change to that employee has been
+// queued meanwhile, and are retried with a growing delay. A change the repository rejects outright
+// (IllegalArgumentException) can never succeed and is discarded. Failures are printed and reported again
+// by the next flush(); changes still failing after the last retries on close() stay in getUnwritten().
+public class EmployeeWriteBehind implements Closeable {
+
+    private static final long MIN_RETRY_DELAY_MILLIS = 100;
+    private static final long MAX_RETRY_DELAY_MILLIS = 10_000;
+    private static final int CLOSE_RETRIES = 5; // attempts at the remaining changes once closed
+
+    private final EmployeeRepository repository;
+    private final EmployeeLocks locks;
+    private final LinkedHashMap<Integer, Employee> dirty = new LinkedHashMap<>(); // guarded by this
+    private Map<Integer, Employee> writingById = new HashMap<>(); // batch being written, guarded by this
+    private final Map<Integer, Employee> unwritten = new LinkedHashMap<>(); // given up on at close, guarded by this
+    private final Thread writer;
+    private boolean writing;
+    private int inFlight;
+    private boolean closed;
+    private IOException failure;
+    private long retryDelay;    // after a failed write; 0 when the last write succeeded
+    private long retryAt;
+    private int failedAttempts; // in a row
+
+    public EmployeeWriteBehind(EmployeeRepository repository) {
+        this(repository, EmployeeLocks.getDefault());
+    }
+
+    public EmployeeWriteBehind(EmployeeRepository repository, EmployeeLocks locks) {
+        this.repository = repository;
+        this.locks = locks;
+        this.writer = new Thread(this::writeLoop, "payroll-write-behind");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // Queues the employee to be written; returns at once
+    public synchronized void submit(Employee employee) {
+        if (closed) {
+            throw new IllegalStateException("Write-behind has been closed.");
+        }
+        dirty.put(employee.getEmployeeId(), employee);
+        notifyAll();
+    }
+
+    // A copy of the employee's queued or in-flight change, or null if the repository is up to date
+    public synchronized Employee getPending(int employeeId) {
+        Employee pending = dirty.get(employeeId);
+        if (pending == null) {
+            pending = writingById.get(employeeId);
+        }
+        return pending == null ? null : pending.copy();
+    }
+
+    public synchronized int getPendingCount() {
+        return dirty.size() + inFlight;
+    }
+
+    // Changes that could not be written before close() gave up, e.g. to export them some other way
+    public synchronized List<Employee> getUnwritten() {
+        return new ArrayList<>(unwritten.values());
+    }
+
+    // Waits until everything submitted so far has been written, or a write has failed; throws the first
+    // failure since the last flush. Changes that failed for an I/O error stay queued and are retried.
+    public synchronized void flush() throws IOException {
+        while ((!dirty.isEmpty() || writing) && failure == null) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted waiting for employee writes.");
+            }
+        }
+        if (failure != null) {
+            IOException reported = failure;
+            failure = null;
+            throw reported;
+        }
+    }
+
+    // Writes everything still queued, retrying failed changes a few more times, then stops the writer thread
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            failedAttempts = 0; // CLOSE_RETRIES more attempts, starting now
+            retryDelay = 0;
+            retryAt = 0;
+            notifyAll();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            if (failure != null) {
+                IOException reported = failure;
+                failure = null;
+                throw reported;
+            }
+        }
+    }
+
+    private void writeLoop() {
+        while (true) {
+            List<Employee> batch;
+            synchronized (this) {
+                while (true) {
+                    long now = System.currentTimeMillis();
+                    try {
+                        if (dirty.isEmpty()) {
+                            if (closed) {
+                                return; // Closed and drained
+                            }
+                            wait();
+                        } else if (now < retryAt) {
+                            wait(retryAt - now); // Back off after a failed write
+                        } else {
+                            break;
+                        }
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (closed && failedAttempts >= CLOSE_RETRIES) {
+                    giveUp();
+                    return;
+                }
+                batch = new ArrayList<>(dirty.values());
+                writingById = new HashMap<>(dirty);
+                dirty.clear();
+                writing = true;
+                inFlight = batch.size();
+            }
+
+            List<Employee> retry = new ArrayList<>();
+            try {
+                retry = write(batch);
+            } finally {
+                synchronized (this) {
+                    for (Employee employee : retry) {
+                        dirty.putIfAbsent(employee.getEmployeeId(), employee); // A newer change replaces it
+                    }
+                    if (retry.isEmpty()) {
+                        failedAttempts = 0;
+                        retryDelay = 0;
+                    } else {
+                        failedAttempts++;
+                        retryDelay = Math.min(Math.max(retryDelay * 2, MIN_RETRY_DELAY_MILLIS), MAX_RETRY_DELAY_MILLIS);
+                        retryAt = System.currentTimeMillis() + retryDelay;
+                    }
+                    writing = false;
+                    writingById = new HashMap<>();
+                    inFlight = 0;
+                    notifyAll();
+                }
+            }
+        }
+    }
+
+    // Writes the batch with the employees' locks held, falling back to one employee at a time if the batch
+    // fails. Returns the employees that failed with an I/O error, to be retried.
+    private List<Employee> write(List<Employee> batch) {
+        int[] employeeIds = new int[batch.size()];
+        for (int i = 0; i < employeeIds.length; i++) {
+            employeeIds[i] = batch.get(i).getEmployeeId();
+        }
+        List<Employee> retry = new ArrayList<>();
+        ReentrantLock[] held = locks.lockAll(employeeIds);
+        try {
+            try {
+                repository.updateAll(batch);
+                return retry;
+            } catch (IOException | RuntimeException e) {
+                if (batch.size() > 1) {
+                    System.err.println("Error writing " + batch.size() + " employees to the employee store, "
+                            + "writing them one at a time: " + e.getMessage());
+                }
+            }
+
+            for (Employee employee : batch) {
+                try {
+                    repository.updateAll(List.of(employee));
+                } catch (IOException e) {
+                    retry.add(employee);
+                    recordFailure(e);
+                } catch (RuntimeException e) {
+                    System.err.println("Discarding the change to employee " + employee.getEmployeeId()
+                            + ", which the employee store rejected: " + e.getMessage());
+                    recordFailure(new IOException("Change to employee " + employee.getEmployeeId()
+                            + " was rejected: " + e.getMessage(), e));
+                }
+            }
+            if (!retry.isEmpty()) {
+                System.err.println("Error writing " + retry.size() + " employees to the employee store, "
+                        + "will retry: " + failureMessage());
+            }
+            return retry;
+        } finally {
+            EmployeeLocks.unlockAll(held);
+        }
+    }
+
+    private synchronized void recordFailure(IOException e) {
+        if (failure == null) {
+            failure = e;
+        }
+    }
+
+    private synchronized String failureMessage() {
+        return failure == null ? "" : failure.getMessage();
+    }
+
+    // Called with the lock held once close() has run out of retries
+    private void giveUp() {
+        unwritten.putAll(dirty);
+        String message = "Could not write the changes to employees " + dirty.keySet() + " to the employee store.";
+        System.err.println(message);
+        failure = new IOException(message, failure); // Reported by close() in place of the earlier failure
+        dirty.clear();
+        notifyAll();
+    }
+}
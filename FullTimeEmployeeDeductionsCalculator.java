@@ -0,0 +1,8 @@
+// Deductions for full-time employees, on a twelfth of their annual salary
+class FullTimeEmployeeDeductionsCalculator extends DeductionsCalculator {
+
+    @Override
+    protected double getMonthlyEarnings(Employee employee) {
+        return employee.getSalary() / 12; // Full-time employee gets monthly salary
+    }
+}
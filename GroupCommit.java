@@ -0,0 +1,120 @@
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+Group commit for writes that each end in an expensive flush (a log sync, a file rewrite).
+
+Callers hand in one item each and block until it has been written. One caller at a time is the leader:
+it takes every item queued so far and writes them in a single batch. Items that arrive meanwhile queue
+up for the next batch, whose leader is one of the callers waiting on it. Under contention N concurrent
+callers therefore cost a couple of batch writes rather than N writes, and a lone caller writes its own
+item straight away with no added latency. There is no background thread.
+
+If a batch write fails, every caller in that batch gets the exception. A caller interrupted while its item
+is still queued withdraws it and gets InterruptedIOException; once a leader has taken the item, the
+caller waits for that write to finish and returns its outcome with the interrupt status set.
+ */
+public class GroupCommit<T> {
+
+    // Writes a batch of items, in submission order
+    public interface BatchWriter<T> {
+        void write(List<T> batch) throws IOException;
+    }
+
+    private final BatchWriter<T> writer;
+
+    // Guarded by this
+    private List<Request<T>> pending = new ArrayList<>();
+    private boolean writing;
+    private long batches;
+    private long items;
+
+    public GroupCommit(BatchWriter<T> writer) {
+        this.writer = writer;
+    }
+
+    // Returns once the item has been written, possibly together with other callers' items
+    public void submit(T item) throws IOException {
+        Request<T> request = new Request<>(item);
+        List<Request<T>> batch;
+        synchronized (this) {
+            pending.add(request);
+            boolean interrupted = false;
+            while (writing && !request.done) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    if (pending.remove(request)) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException("Interrupted waiting for a group commit.");
+                    }
+                    interrupted = true; // Already in a batch being written: wait for its outcome
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            if (request.done) {
+                request.rethrow(); // Written by another leader
+                return;
+            }
+            // Leader for everything queued so far
+            writing = true;
+            batch = pending;
+            pending = new ArrayList<>();
+        }
+
+        Throwable failure = null;
+        try {
+            List<T> items = new ArrayList<>(batch.size());
+            for (Request<T> queued : batch) {
+                items.add(queued.item);
+            }
+            writer.write(items);
+        } catch (IOException | RuntimeException | Error e) {
+            failure = e;
+        } finally {
+            synchronized (this) {
+                for (Request<T> queued : batch) {
+                    queued.failure = failure;
+                    queued.done = true;
+                }
+                batches++;
+                items += batch.size();
+                writing = false;
+                notifyAll();
+            }
+        }
+        request.rethrow();
+    }
+
+    public synchronized long getBatchCount() {
+        return batches;
+    }
+
+    public synchronized long getItemCount() {
+        return items;
+    }
+
+    private static class Request<T> {
+        final T item;
+        boolean done;       // Guarded by the GroupCommit
+        Throwable failure;  // Likewise
+
+        Request(T item) {
+            this.item = item;
+        }
+
+        void rethrow() throws IOException {
+            if (failure instanceof IOException) {
+                throw (IOException) failure;
+            } else if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            } else if (failure instanceof Error) {
+                throw (Error) failure;
+            }
+        }
+    }
+}
@@ -0,0 +1,183 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+
+/*
+Incremental month-end payroll: only employees whose pay inputs changed since last month are recomputed.
+
+Each employee's pay-relevant inputs (type, calculator, salary, health insurance rate, and for part-time
+staff the hourly rate and hours worked) are reduced to a 64-bit fingerprint. Payroll.cache keeps the
+fingerprint and deduction breakdown of every employee paid in the last run. If an employee's fingerprint
+still matches, last month's breakdown is reused and only the pay date moves forward; otherwise the
+payslip is computed in full. The whole cache is dropped when TaxRates.csv or the tax year changes.
+
+generate() may be called from many worker threads; record() and save() are for the single writer thread.
+
+Cache layout:
+  header (24 bytes): magic, version, tax rates fingerprint, entry count, unused
+  entries (60 bytes each): employee ID, input fingerprint, the six DeductionBreakdown amounts in cents
+ */
+public class IncrementalPayroll {
+
+    private static final String CACHE_FILE = "Payroll.cache";
+    private static final String RATES_FILE = "TaxRates.csv";
+
+    private static final int MAGIC = 0x50415943; // "PAYC"
+    private static final int VERSION = 2;        // bump when the deduction rules change in code
+
+    private final File cacheFile;
+    private final LocalDate payDate;
+    private final TaxRates rates;
+    private final long ratesFingerprint;
+
+    private final IntHashMap<Entry> previous;
+    private final IntHashMap<Entry> next = new IntHashMap<>();
+
+    private final LongAdder reused = new LongAdder();
+    private final LongAdder recomputed = new LongAdder();
+
+    private IncrementalPayroll(File cacheFile, LocalDate payDate, TaxRates rates, long ratesFingerprint,
+                               IntHashMap<Entry> previous) {
+        this.cacheFile = cacheFile;
+        this.payDate = payDate;
+        this.rates = rates;
+        this.ratesFingerprint = ratesFingerprint;
+        this.previous = previous;
+    }
+
+    public static IncrementalPayroll open(LocalDate payDate) throws IOException {
+        return open(new File(CACHE_FILE), new File(RATES_FILE), payDate);
+    }
+
+    // Loads last month's results, or starts empty if there are none or they were computed under other rates
+    public static IncrementalPayroll open(File cacheFile, File ratesFile, LocalDate payDate) throws IOException {
+        TaxRates rates = TaxRates.forYear(payDate.getYear());
+        long ratesFingerprint = ratesFingerprint(ratesFile, rates);
+        IntHashMap<Entry> previous = new IntHashMap<>();
+
+        if (cacheFile.exists()) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile), 1 << 16))) {
+                if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                    System.err.println("Ignoring unreadable payroll cache " + cacheFile.getName() + ".");
+                } else if (in.readLong() == ratesFingerprint) {
+                    int count = in.readInt();
+                    in.readInt();
+                    for (int i = 0; i < count; i++) {
+                        int employeeId = in.readInt();
+                        long fingerprint = in.readLong();
+                        previous.put(employeeId, new Entry(fingerprint, new DeductionBreakdown(
+                                in.readLong(), in.readLong(), in.readLong(),
+                                in.readLong(), in.readLong(), in.readLong())));
+                    }
+                }
+            } catch (EOFException e) {
+                System.err.println("Ignoring truncated payroll cache " + cacheFile.getName() + ".");
+                previous = new IntHashMap<>();
+            }
+        }
+        return new IncrementalPayroll(cacheFile, payDate, rates, ratesFingerprint, previous);
+    }
+
+    // The employee's payslip for this run, reusing last month's breakdown when the pay inputs are unchanged
+    public Payslip generate(Employee employee) {
+        Entry entry = previous.get(employee.getEmployeeId());
+        DeductionBreakdown deductions;
+        if (entry != null && entry.fingerprint == fingerprint(employee)) {
+            deductions = entry.deductions;
+            reused.increment();
+        } else {
+            deductions = employee.getDeductionsCalculator().calculateDeductions(employee, rates);
+            recomputed.increment();
+        }
+        return new Payslip(employee.getEmployeeId(), employee.getName(), payDate, deductions);
+    }
+
+    // Remembers the payslip written for this employee, for next month's run
+    public void record(Employee employee, Payslip payslip) {
+        next.put(employee.getEmployeeId(), new Entry(fingerprint(employee), payslip.getDeductions()));
+    }
+
+    // Replaces the cache with this run's results; employees not paid in this run are dropped
+    public void save() throws IOException {
+        File temp = new File(cacheFile.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(ratesFingerprint);
+            out.writeInt(next.size());
+            out.writeInt(0);
+            for (int employeeId : next.toKeyArray()) {
+                Entry entry = next.get(employeeId);
+                DeductionBreakdown deductions = entry.deductions;
+                out.writeInt(employeeId);
+                out.writeLong(entry.fingerprint);
+                out.writeLong(deductions.getMonthlyEarnings());
+                out.writeLong(deductions.getHealthInsurance());
+                out.writeLong(deductions.getUnionFees());
+                out.writeLong(deductions.getPrsi());
+                out.writeLong(deductions.getUsc());
+                out.writeLong(deductions.getIncomeTax());
+            }
+        }
+        Files.move(temp.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public long getReusedCount() {
+        return reused.sum();
+    }
+
+    public long getRecomputedCount() {
+        return recomputed.sum();
+    }
+
+    // Fingerprint of everything DeductionsCalculator reads from the employee
+    static long fingerprint(Employee employee) {
+        long hash = mix(employee.getEmployeeType().ordinal());
+        hash = mix(hash * 31 + employee.getDeductionsCalculator().getClass().getName().hashCode());
+        hash = mix(hash * 31 + Double.doubleToLongBits(employee.getSalary()));
+        hash = mix(hash * 31 + Double.doubleToLongBits(employee.getHealthInsuranceRate()));
+        if (employee instanceof PartTimeEmployee) {
+            PartTimeEmployee partTimeEmployee = (PartTimeEmployee) employee;
+            hash = mix(hash * 31 + Double.doubleToLongBits(partTimeEmployee.getHourlyRate()));
+            hash = mix(hash * 31 + partTimeEmployee.getHoursWorked());
+        }
+        return hash;
+    }
+
+    // Murmur3 64-bit finalizer
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static long ratesFingerprint(File ratesFile, TaxRates rates) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(Files.readAllBytes(ratesFile.toPath()));
+        return crc.getValue() << 16 ^ rates.getTaxYear();
+    }
+
+    private static class Entry {
+        private final long fingerprint;
+        private final DeductionBreakdown deductions;
+
+        Entry(long fingerprint, DeductionBreakdown deductions) {
+            this.fingerprint = fingerprint;
+            this.deductions = deductions;
+        }
+    }
+}
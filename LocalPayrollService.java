@@ -0,0 +1,270 @@
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+// PayrollService run in this process against the default employee repository, salary scale index and
+// payslip ledger, all of which stay loaded between calls. An employee is read, changed and saved while
+// holding its lock from EmployeeLocks, so concurrent requests for one employee are applied one after
+// the other and none is lost, while requests for different employees proceed in parallel and their
+// writes are group-committed by the repository. With write-behind (as PayrollServer runs it) updates are queued on an
+// EmployeeWriteBehind instead of being written before the call returns. Closing the service writes the
+// employee store back out to the CSV files; while it runs the store exports them in the background too
+// (see EmployeeStore), so they do not go stale for long if the process is killed.
+public class LocalPayrollService implements PayrollService {
+
+    private final EmployeeWriteBehind writeBehind; // null to write each update before returning
+    private final EmployeeLocks locks = EmployeeLocks.getDefault();
+
+    public LocalPayrollService() {
+        this.writeBehind = null;
+    }
+
+    public LocalPayrollService(EmployeeWriteBehind writeBehind) {
+        this.writeBehind = writeBehind;
+    }
+
+    @Override
+    public String describeEmployee(int employeeId) throws IOException {
+        ReentrantLock lock = locks.lockFor(employeeId);
+        lock.lock();
+        try {
+            return findEmployee(employeeId).toString();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean isPartTime(int employeeId) throws IOException {
+        return findEmployee(employeeId) instanceof PartTimeEmployee;
+    }
+
+    @Override
+    public boolean isPaymentRequestSubmitted(int employeeId) throws IOException {
+        ReentrantLock lock = locks.lockFor(employeeId);
+        lock.lock();
+        try {
+            Employee employee = findEmployee(employeeId);
+            return employee instanceof PartTimeEmployee && ((PartTimeEmployee) employee).isPaymentRequestSubmitted();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<String> listPayslips(int employeeId) throws IOException {
+        findEmployee(employeeId);
+        List<String> payslips = new ArrayList<>();
+        for (Payslip payslip : PayslipArchive.getDefault().readPayslips(employeeId, PayslipLedger.getDefault())) {
+            payslips.add(payslip.toString());
+        }
+        return payslips;
+    }
+
+    @Override
+    public String submitPaymentRequest(int employeeId, int hoursWorked) throws IOException {
+        ReentrantLock lock = locks.lockFor(employeeId);
+        lock.lock();
+        double paymentAmount;
+        try {
+            Employee employee = findEmployee(employeeId);
+            if (!(employee instanceof PartTimeEmployee)) {
+                throw new IllegalArgumentException("Invalid option for this employee type.");
+            }
+            if (hoursWorked <= 0) {
+                throw new IllegalArgumentException("Invalid number of hours. Payment request not submitted.");
+            }
+
+            PartTimeEmployee partTimeEmployee = (PartTimeEmployee) employee;
+            if (partTimeEmployee.isPaymentRequestSubmitted()) {
+                throw new IllegalArgumentException("A payment request has already been submitted.");
+            }
+            paymentAmount = hoursWorked * partTimeEmployee.getHourlyRate();
+            partTimeEmployee.setHoursWorked(hoursWorked);
+            partTimeEmployee.submitPaymentRequest();
+            save(partTimeEmployee);
+        } finally {
+            lock.unlock();
+        }
+        return String.format("Payment request for €%.2f submitted successfully.", paymentAmount);
+    }
+
+    @Override
+    public int createFullTimeEmployee(String name, String position, int scalePoint, double healthInsuranceRate)
+            throws IOException {
+        double salary = SalaryScaleIndex.getInstance().getSalary(position, scalePoint);
+        if (salary < 0) {
+            throw new IllegalArgumentException("Invalid salary scale point for the given job title.");
+        }
+        return create(id -> new Employee(name, id, Employee.EmployeeType.FULL_TIME, position, salary, scalePoint,
+                LocalDate.now(), healthInsuranceRate));
+    }
+
+    @Override
+    public int createPartTimeEmployee(String name, String position, double hourlyRate) throws IOException {
+        return create(id -> new PartTimeEmployee(name, id, position, hourlyRate, 0, LocalDate.now(), false));
+    }
+
+    private interface EmployeeFactory {
+        Employee newEmployee(int employeeId);
+    }
+
+    private int create(EmployeeFactory factory) throws IOException {
+        EmployeeRepository repository = EmployeeRepository.getDefault();
+        int newId = repository.allocateEmployeeId();
+        try {
+            repository.create(factory.newEmployee(newId));
+        } catch (IOException | RuntimeException e) {
+            repository.releaseEmployeeId(newId);
+            throw e;
+        }
+        return newId;
+    }
+
+    @Override
+    public List<String> importEmployees(String stagingFilePath) throws IOException {
+        File stagingFile = new File(stagingFilePath);
+        if (!stagingFile.isFile()) {
+            throw new IllegalArgumentException("File not found: " + stagingFile.getPath());
+        }
+        flush(); // The import rewrites the CSV files from the store
+
+        BulkEmployeeImport bulkImport = new BulkEmployeeImport(EmployeeRepository.getDefault(), SalaryScaleIndex.getInstance());
+        int imported = bulkImport.run(stagingFile);
+        if (imported > 0) {
+            EmployeeStore.getDefault().exportToCSV(); // The default repository is backed by the default store
+        }
+
+        List<String> messages = new ArrayList<>(bulkImport.getErrors());
+        messages.add("Imported " + imported + " employees, " + bulkImport.getErrors().size() + " rows rejected.");
+        return messages;
+    }
+
+    @Override
+    public String promoteEmployee(int employeeId, String position, int scalePoint) throws IOException {
+        double newSalary = SalaryScaleIndex.getInstance().getSalary(position, scalePoint);
+        ReentrantLock lock = locks.lockFor(employeeId);
+        lock.lock();
+        try {
+            Employee employee = findEmployee(employeeId);
+            if (employee.getEmployeeType() != Employee.EmployeeType.FULL_TIME) {
+                throw new IllegalArgumentException("Only full-time employees can be promoted.");
+            }
+            if (newSalary < 0) {
+                throw new IllegalArgumentException("Invalid salary scale point for the given job title.");
+            }
+
+            employee.setEmployeePosition(position);
+            employee.setSalaryPoint(scalePoint);
+            employee.setSalary(newSalary);
+            employee.setLastPromotionDate(LocalDate.now());
+            save(employee);
+        } finally {
+            lock.unlock();
+        }
+        return "Promotion applied successfully.";
+    }
+
+    // Generate monthly payslips for all employees on the 25th
+    @Override
+    public List<String> generateMonthlyPayslips() throws IOException {
+        List<String> messages = new ArrayList<>();
+        LocalDate today = LocalDate.now();
+        if (today.getDayOfMonth() != 25) {
+            messages.add("Payslips can only be generated on the 25th of the month.");
+            return messages;
+        }
+        try {
+            flush(); // Queued updates, e.g. just-submitted hours, must be in the repository before it is paid
+        } catch (IOException e) {
+            throw new IOException("Payroll run aborted, employee updates could not be written: " + e.getMessage(), e);
+        }
+        List<Employee> employees = EmployeeRepository.getDefault().findAll();
+
+        // Payslips.csv is opened once for the whole run
+        IncrementalPayroll incremental = null;
+        PayrollRun run = PayrollRun.fromSystemProperties();
+        PayslipWriter payslipWriter;
+        try (PayslipWriter writer = new PayslipWriter()) {
+            payslipWriter = writer;
+            if (Boolean.getBoolean("payroll.incremental")) {
+                incremental = IncrementalPayroll.open(today);
+            }
+            run.run(employees, writer, incremental); // Payslips are computed in parallel, written in order
+        } catch (IOException e) {
+            throw new IOException("Error writing payslips to Payslips.csv: " + e.getMessage(), e);
+        }
+        if (Boolean.getBoolean("payroll.metrics")) {
+            messages.add(payslipWriter.getThroughput());
+            messages.add(run.getMetrics().toString());
+        }
+
+        if (incremental != null) {
+            messages.add("Recomputed " + incremental.getRecomputedCount() + " payslips, reused "
+                    + incremental.getReusedCount() + " unchanged from last month.");
+            try {
+                incremental.save();
+            } catch (IOException e) {
+                messages.add("Error saving the payroll cache: " + e.getMessage());
+            }
+        }
+        messages.add("Payslips generated successfully for all employees.");
+        messages.add("Employees who did not submit a payment request have not been paid.");
+        return messages;
+    }
+
+    // Waits for queued employee updates to reach the store
+    public void flush() throws IOException {
+        if (writeBehind != null) {
+            writeBehind.flush();
+        }
+    }
+
+    // Finishes any queued updates, then writes the employee store back out to the CSV files. Changes the
+    // write-behind could not get into the store are exported along with it, so they are not lost.
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        List<Employee> unwritten = new ArrayList<>();
+        if (writeBehind != null) {
+            try {
+                writeBehind.close();
+            } catch (IOException e) {
+                failure = e;
+            }
+            unwritten = writeBehind.getUnwritten();
+        }
+        EmployeeStore store = EmployeeStore.getDefault();
+        try {
+            store.exportToCSV(unwritten);
+        } finally {
+            store.close();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    // A copy to change and save(): the queued change if one has not reached the repository yet
+    private Employee findEmployee(int employeeId) throws IOException {
+        if (writeBehind != null) {
+            Employee pending = writeBehind.getPending(employeeId);
+            if (pending != null) {
+                return pending;
+            }
+        }
+        return EmployeeRepository.getDefault().findById(employeeId); // IllegalArgumentException if there is none
+    }
+
+    // Called with the employee's lock held
+    private void save(Employee employee) throws IOException {
+        if (writeBehind != null) {
+            writeBehind.submit(employee);
+        } else {
+            EmployeeRepository.getDefault().update(employee);
+        }
+    }
+}
@@ -0,0 +1,374 @@
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+
+/*
+Forward-only CSV reader that tokenizes straight from a memory-mapped file.
+
+Call nextRow() to move to the next non-empty line, then read its fields left to right with the typed
+nextXxx() methods. Ints, doubles, money amounts, booleans, enum constants and ISO dates are parsed from the mapped
+bytes without building intermediate Strings; only nextString() allocates. Leading and trailing spaces
+around a field are ignored, like the trim() calls in CSVHandler. Malformed numbers throw
+NumberFormatException, as Integer.parseInt/Double.parseDouble would.
+
+Large files are mapped in windows; a window always starts at the beginning of a line.
+ */
+public class MappedCsvReader implements Closeable {
+
+    private static final long WINDOW_SIZE = 256L << 20; // 256 MiB
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+    private final FileChannel channel;
+    private final long fileSize;
+
+    private MappedByteBuffer window;
+    private long windowStart;
+    private int windowLimit;
+
+    private int lineEnd = -1;   // index of the end of the current line in the window (exclusive)
+    private int position;       // index of the next unread byte in the current line
+    private int nextLineStart;  // index where the next line begins
+
+    public MappedCsvReader(File file) throws IOException {
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        this.fileSize = channel.size();
+        mapWindow(0);
+    }
+
+    // Moves to the next non-empty line; returns false at the end of the file
+    public boolean nextRow() throws IOException {
+        while (true) {
+            if (nextLineStart >= windowLimit) {
+                if (windowStart + windowLimit >= fileSize) {
+                    return false;
+                }
+                mapWindow(windowStart + nextLineStart);
+            }
+
+            int end = indexOfNewline(nextLineStart);
+            if (end < 0) {
+                if (windowStart + windowLimit < fileSize) {
+                    // The line runs past this window: remap starting at the line
+                    if (nextLineStart == 0) {
+                        throw new IOException("CSV line longer than " + WINDOW_SIZE + " bytes.");
+                    }
+                    mapWindow(windowStart + nextLineStart);
+                    continue;
+                }
+                end = windowLimit; // last line without a trailing newline
+            }
+
+            position = nextLineStart;
+            nextLineStart = end + 1;
+            lineEnd = end > position && window.get(end - 1) == '\r' ? end - 1 : end;
+            if (lineEnd > position) {
+                return true;
+            }
+        }
+    }
+
+    public boolean hasMoreFields() {
+        return position <= lineEnd;
+    }
+
+    public void skipField() {
+        int end = fieldEnd();
+        advancePast(end);
+    }
+
+    public String nextString() {
+        int start = skipSpaces(position);
+        int end = fieldEnd();
+        int trimmedEnd = trimEnd(start, end);
+        byte[] bytes = new byte[trimmedEnd - start];
+        window.get(start, bytes);
+        advancePast(end);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public int nextInt() {
+        long value = nextLong();
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("Value out of int range: " + value);
+        }
+        return (int) value;
+    }
+
+    public long nextLong() {
+        int start = skipSpaces(position);
+        int end = fieldEnd();
+        int trimmedEnd = trimEnd(start, end);
+
+        int i = start;
+        boolean negative = false;
+        if (i < trimmedEnd && (window.get(i) == '-' || window.get(i) == '+')) {
+            negative = window.get(i) == '-';
+            i++;
+        }
+        if (i == trimmedEnd || trimmedEnd - i > 18) {
+            throw numberFormatError(start, trimmedEnd);
+        }
+
+        long value = 0;
+        for (; i < trimmedEnd; i++) {
+            int digit = window.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw numberFormatError(start, trimmedEnd);
+            }
+            value = value * 10 + digit;
+        }
+        advancePast(end);
+        return negative ? -value : value;
+    }
+
+    // Plain decimals (e.g. "-1234.56") are converted exactly from the bytes; anything else falls back to Double.parseDouble
+    public double nextDouble() {
+        int start = skipSpaces(position);
+        int end = fieldEnd();
+        int trimmedEnd = trimEnd(start, end);
+
+        int i = start;
+        boolean negative = false;
+        if (i < trimmedEnd && (window.get(i) == '-' || window.get(i) == '+')) {
+            negative = window.get(i) == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        boolean sawDigit = false;
+        int fractionDigits = -1;
+        boolean plain = i < trimmedEnd;
+        for (; i < trimmedEnd && plain; i++) {
+            byte b = window.get(i);
+            if (b >= '0' && b <= '9') {
+                mantissa = mantissa * 10 + (b - '0');
+                sawDigit = true;
+                if (mantissa != 0 || digits > 0) {
+                    digits++;
+                }
+                if (fractionDigits >= 0) {
+                    fractionDigits++;
+                }
+            } else if (b == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+            } else {
+                plain = false;
+            }
+        }
+
+        // Both operands are exact doubles, so one division gives the correctly rounded result
+        int scale = Math.max(fractionDigits, 0);
+        if (plain && sawDigit && digits <= 15 && scale < POWERS_OF_TEN.length) {
+            advancePast(end);
+            double value = mantissa / POWERS_OF_TEN[scale];
+            return negative ? -value : value;
+        }
+
+        byte[] bytes = new byte[trimmedEnd - start];
+        window.get(start, bytes);
+        advancePast(end);
+        return Double.parseDouble(new String(bytes, StandardCharsets.US_ASCII));
+    }
+
+    // Parses a decimal amount straight to cents with Money.parse rules (half-up beyond two decimals)
+    public long nextCents() {
+        int start = skipSpaces(position);
+        int end = fieldEnd();
+        int trimmedEnd = trimEnd(start, end);
+
+        int i = start;
+        boolean negative = false;
+        if (i < trimmedEnd && (window.get(i) == '-' || window.get(i) == '+')) {
+            negative = window.get(i) == '-';
+            i++;
+        }
+
+        long units = 0;
+        int decimals = -1;
+        boolean sawDigit = false;
+        boolean roundUp = false;
+        for (; i < trimmedEnd; i++) {
+            byte b = window.get(i);
+            if (b >= '0' && b <= '9') {
+                sawDigit = true;
+                if (decimals < 2) {
+                    if (units > Long.MAX_VALUE / 100) {
+                        throw numberFormatError(start, trimmedEnd);
+                    }
+                    units = units * 10 + (b - '0');
+                    if (decimals >= 0) {
+                        decimals++;
+                    }
+                } else if (decimals == 2) {
+                    roundUp = b >= '5';
+                    decimals++;
+                }
+            } else if (b == '.' && decimals < 0) {
+                decimals = 0;
+            } else {
+                // Exponents and other forms: let Money handle them
+                String text = text(start, trimmedEnd);
+                advancePast(end);
+                return Money.parse(text);
+            }
+        }
+        if (!sawDigit) {
+            throw numberFormatError(start, trimmedEnd);
+        }
+
+        for (int d = Math.max(decimals, 0); d < 2; d++) {
+            units *= 10;
+        }
+        if (roundUp) {
+            units++;
+        }
+        advancePast(end);
+        return negative ? -units : units;
+    }
+
+    public boolean nextBoolean() {
+        int start = skipSpaces(position);
+        int end = fieldEnd();
+        boolean value = matchesIgnoreCase(start, trimEnd(start, end), "true");
+        advancePast(end);
+        return value; // like Boolean.parseBoolean, anything but "true" is false
+    }
+
+    // Parses an ISO yyyy-MM-dd date
+    public LocalDate nextDate() {
+        int start = skipSpaces(position);
+        int end = fieldEnd();
+        int trimmedEnd = trimEnd(start, end);
+        if (trimmedEnd - start != 10 || window.get(start + 4) != '-' || window.get(start + 7) != '-') {
+            throw new IllegalArgumentException("Invalid date: " + text(start, trimmedEnd));
+        }
+        int year = digits(start, start + 4);
+        int month = digits(start + 5, start + 7);
+        int day = digits(start + 8, start + 10);
+        advancePast(end);
+        return LocalDate.of(year, month, day);
+    }
+
+    // Matches the field against the enum constant names, like Enum.valueOf
+    public <E extends Enum<E>> E nextEnum(E[] constants) {
+        int start = skipSpaces(position);
+        int end = fieldEnd();
+        int trimmedEnd = trimEnd(start, end);
+        for (E constant : constants) {
+            if (matches(start, trimmedEnd, constant.name())) {
+                advancePast(end);
+                return constant;
+            }
+        }
+        throw new IllegalArgumentException("No enum constant " + text(start, trimmedEnd));
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void mapWindow(long start) throws IOException {
+        long size = Math.min(WINDOW_SIZE, fileSize - start);
+        window = channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+        windowStart = start;
+        windowLimit = (int) size;
+        nextLineStart = 0;
+        lineEnd = -1;
+        position = 0;
+    }
+
+    private int indexOfNewline(int from) {
+        for (int i = from; i < windowLimit; i++) {
+            if (window.get(i) == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Index of the comma ending the current field, or the end of the line
+    private int fieldEnd() {
+        if (position > lineEnd) {
+            throw new IllegalStateException("No more fields on this line.");
+        }
+        for (int i = position; i < lineEnd; i++) {
+            if (window.get(i) == ',') {
+                return i;
+            }
+        }
+        return lineEnd;
+    }
+
+    private void advancePast(int fieldEnd) {
+        position = fieldEnd + 1; // past the comma; beyond lineEnd once the last field is read
+    }
+
+    private int skipSpaces(int from) {
+        while (from < lineEnd && window.get(from) == ' ') {
+            from++;
+        }
+        return from;
+    }
+
+    private int trimEnd(int start, int end) {
+        while (end > start && window.get(end - 1) == ' ') {
+            end--;
+        }
+        return end;
+    }
+
+    private int digits(int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = window.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new IllegalArgumentException("Invalid date: " + text(start, end));
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private boolean matches(int start, int end, String expected) {
+        if (end - start != expected.length()) {
+            return false;
+        }
+        for (int i = 0; i < expected.length(); i++) {
+            if (window.get(start + i) != expected.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean matchesIgnoreCase(int start, int end, String expected) {
+        if (end - start != expected.length()) {
+            return false;
+        }
+        for (int i = 0; i < expected.length(); i++) {
+            if (Character.toLowerCase(window.get(start + i)) != expected.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private NumberFormatException numberFormatError(int start, int end) {
+        return new NumberFormatException("For input string: \"" + text(start, end) + "\"");
+    }
+
+    private String text(int start, int end) {
+        byte[] bytes = new byte[end - start];
+        window.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,149 @@
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/*
+Fixed-point money arithmetic on whole euro cents held in a long.
+
+Amounts are converted to cents once, at the edge (salary / 12, hourly rate * hours, values read from CSV),
+and everything after that is exact integer arithmetic, so deductions, totals and net pay always add up to
+the cent. Rates are held as integer millionths (0.041 -> 41,000 micros), and a rate applied to an amount
+is rounded once, half-up (away from zero), back to cents. Longs are used directly rather than a wrapper
+object, so the payroll hot path does not allocate.
+
+Rounding rules:
+  toCents(double)         half-up to the cent on the shortest decimal form, like String.format("%.2f")
+  applyRate, divide       half-up to the cent on the exact integer result
+ */
+public final class Money {
+
+    public static final long MICROS = 1_000_000; // rate scale: 1.0 == 1,000,000 micros
+    private static final long MICROS_RECIPROCAL = 4_835_703_278_458_516_699L; // ceil(2^82 / MICROS)
+
+    private Money() {
+    }
+
+    // Rounds an amount in euros to the nearest cent, half-up
+    public static long toCents(double amount) {
+        double magnitude = Math.abs(amount);
+        if (!(magnitude < 1e9)) { // also catches NaN
+            if (Double.isNaN(amount) || Double.isInfinite(amount)) {
+                throw new IllegalArgumentException("Not a money amount: " + amount);
+            }
+            return BigDecimal.valueOf(amount).setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+        }
+
+        double scaled = magnitude * 100;
+        double fraction = scaled - (long) scaled; // truncation is floor for a non-negative value
+
+        long cents;
+        if (Math.abs(fraction - 0.5) < 1e-3) {
+            // Too close to a tie to trust binary rounding; round the shortest decimal form instead
+            cents = BigDecimal.valueOf(magnitude).setScale(2, RoundingMode.HALF_UP).unscaledValue().longValue();
+        } else {
+            cents = (long) (scaled + 0.5); // clear of a tie, so adding a half cannot round the wrong way
+        }
+        return amount < 0 ? -cents : cents;
+    }
+
+    // Parses a decimal amount such as "1234.56" or "-0.5" exactly; more than two decimals round half-up
+    public static long parse(String text) {
+        String trimmed = text.trim();
+        int length = trimmed.length();
+        int i = 0;
+        boolean negative = false;
+        if (i < length && (trimmed.charAt(i) == '-' || trimmed.charAt(i) == '+')) {
+            negative = trimmed.charAt(i) == '-';
+            i++;
+        }
+
+        long units = 0;
+        int decimals = -1;
+        boolean sawDigit = false;
+        boolean roundUp = false;
+        for (; i < length; i++) {
+            char c = trimmed.charAt(i);
+            if (c >= '0' && c <= '9') {
+                sawDigit = true;
+                if (decimals < 2) {
+                    units = Math.addExact(Math.multiplyExact(units, 10), c - '0');
+                    if (decimals >= 0) {
+                        decimals++;
+                    }
+                } else if (decimals == 2) {
+                    roundUp = c >= '5'; // third decimal decides; later digits cannot change a half-up result
+                    decimals++;
+                }
+            } else if (c == '.' && decimals < 0) {
+                decimals = 0;
+            } else {
+                // Exponents and other forms the fast path does not handle
+                return new BigDecimal(trimmed).setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+            }
+        }
+        if (!sawDigit) {
+            throw new NumberFormatException("For input string: \"" + text + "\"");
+        }
+
+        for (int d = Math.max(decimals, 0); d < 2; d++) {
+            units = Math.multiplyExact(units, 10);
+        }
+        if (roundUp) {
+            units++;
+        }
+        return negative ? -units : units;
+    }
+
+    // Converts a rate such as 0.041 to integer millionths
+    public static long rateToMicros(double rate) {
+        return Math.round(rate * MICROS);
+    }
+
+    // Converts a percentage such as 12.5 to integer millionths of the amount
+    public static long percentToMicros(double percent) {
+        return Math.round(percent * (MICROS / 100));
+    }
+
+    // cents * rate, rounded half-up to the cent
+    public static long applyRate(long cents, long rateMicros) {
+        long value = Math.multiplyExact(cents, rateMicros);
+        // Divides by MICROS as a multiply by its reciprocal, MICROS_RECIPROCAL / 2^82, which is exact for
+        // every non-negative long; the JIT's own division by a constant also has to handle the sign
+        if (value >= 0) {
+            return Math.multiplyHigh(value + MICROS / 2, MICROS_RECIPROCAL) >>> 18;
+        }
+        return -(Math.multiplyHigh(-value + MICROS / 2, MICROS_RECIPROCAL) >>> 18);
+    }
+
+    // value / divisor rounded half-up (away from zero); divisor must be positive
+    public static long divide(long value, long divisor) {
+        // One division per call; with a constant divisor the JIT turns it into a multiply
+        if (value >= 0) {
+            return (value + divisor / 2) / divisor;
+        }
+        return -((-value + divisor / 2) / divisor);
+    }
+
+    public static double toEuros(long cents) {
+        return cents / 100.0;
+    }
+
+    // Appends the amount as euros with two decimals, e.g. -1234.05
+    public static void append(StringBuilder sb, long cents) {
+        if (cents < 0) {
+            sb.append('-');
+        }
+        long magnitude = Math.abs(cents);
+        sb.append(magnitude / 100).append('.');
+        long remainder = magnitude % 100;
+        if (remainder < 10) {
+            sb.append('0');
+        }
+        sb.append(remainder);
+    }
+
+    public static String format(long cents) {
+        StringBuilder sb = new StringBuilder(16);
+        append(sb, cents);
+        return sb.toString();
+    }
+}
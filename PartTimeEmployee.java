@@ -12,7 +12,6 @@ public class PartTimeEmployee extends Employee {
         this.hourlyRate = hourlyRate;
         this.hoursWorked = hoursWorked;
         this.hasSubmittedPaymentRequest = hasSubmittedPaymentRequest;
-        setDeductionsCalculator(new PartTimeEmployeeDeductionsCalculator());
     }
 
     public int getHoursWorked() {
@@ -49,6 +48,14 @@ public class PartTimeEmployee extends Employee {
         this.hasSubmittedPaymentRequest = false;
     }
 
+    @Override
+    public PartTimeEmployee copy() {
+        PartTimeEmployee copy = new PartTimeEmployee(getName(), getEmployeeId(), getEmployeePosition(), hourlyRate,
+                hoursWorked, getLastPromotionDate(), hasSubmittedPaymentRequest);
+        copyStateTo(copy);
+        return copy;
+    }
+
     @Override
     public String toString() {
         return super.toString() +
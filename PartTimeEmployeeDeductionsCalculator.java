@@ -0,0 +1,9 @@
+// Deductions for part-time employees, on the hours they submitted at their hourly rate
+class PartTimeEmployeeDeductionsCalculator extends DeductionsCalculator {
+
+    @Override
+    protected double getMonthlyEarnings(Employee employee) {
+        PartTimeEmployee partTimeEmployee = (PartTimeEmployee) employee;
+        return partTimeEmployee.getHourlyRate() * partTimeEmployee.getHoursWorked(); // Part-time employee earns based on hourly rate and hours worked
+    }
+}
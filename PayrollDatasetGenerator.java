@@ -0,0 +1,208 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/*
+Deterministic synthetic payroll data for load and scale testing.
+
+Writes Employees.csv, PartTimeEmployees.csv and a multi-year Payslips.csv history in the same layout as
+CSVHandler. Full-time positions and scale points are drawn from ULSalaryInformation.csv, and the salary
+is the rate for that point, so readSalary lookups on the generated roster hit. Payslips are computed
+with the employee's DeductionsCalculator under the tax rates of the pay year (the earliest year in
+TaxRates.csv for periods before it).
+
+Every employee is a pure function of (seed, employee ID) and every month's hours a function of
+(seed, employee ID, month), so nothing is kept in memory between rows: the same seed always produces the
+same files, and 10M rows take no more heap than 10.
+
+Usage: java PayrollDatasetGenerator <outputDir> [employees] [years] [seed] [firstYear]
+       (defaults: 100,000 employees, 2 years of monthly payslips starting January 2023, seed 42)
+ */
+public class PayrollDatasetGenerator {
+
+    private static final String SALARY_FILE = "ULSalaryInformation.csv";
+    private static final double PART_TIME_SHARE = 0.25;
+    private static final int PAY_DAY = 25;
+
+    private static final String[] FIRST_NAMES = {
+            "Aoife", "Ciara", "Niamh", "Saoirse", "Sinead", "Orla", "Emma", "Grace", "Roisin", "Maeve",
+            "Sean", "Conor", "Cian", "Oisin", "Darragh", "Eoin", "Liam", "Patrick", "Fionn", "Ronan"};
+    private static final String[] LAST_NAMES = {
+            "Murphy", "Kelly", "O'Sullivan", "Walsh", "Smith", "O'Brien", "Byrne", "Ryan", "O'Connor", "O'Neill",
+            "O'Reilly", "Doyle", "McCarthy", "Gallagher", "Doherty", "Kennedy", "Lynch", "Murray", "Quinn", "Moore"};
+
+    private final long seed;
+
+    // Scale rows from ULSalaryInformation.csv: category, scale point and annual rate at the same index
+    private final String[] categories;
+    private final int[] scalePoints;
+    private final double[] annualRates;
+    private final String[] distinctCategories;
+
+    private final int firstRatesYear;
+
+    public PayrollDatasetGenerator(File salaryFile, long seed) throws IOException {
+        this.seed = seed;
+
+        List<String> categoryList = new ArrayList<>();
+        List<Integer> pointList = new ArrayList<>();
+        List<Double> rateList = new ArrayList<>();
+        List<String> distinct = new ArrayList<>();
+        SalaryScaleIndex index = new SalaryScaleIndex(salaryFile);
+        try (BufferedReader br = new BufferedReader(new FileReader(salaryFile))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                String[] parts = line.split(",");
+                if (line.isBlank() || line.startsWith("Category") || parts.length < 3) {
+                    continue;
+                }
+
+                String category = parts[0].trim();
+                if (category.isEmpty()) {
+                    continue;
+                }
+                try {
+                    int scalePoint = Integer.parseInt(parts[1].trim());
+                    double rate = Double.parseDouble(parts[2].trim());
+                    if (scalePoint < 0 || index.getSalary(category, scalePoint) != rate) {
+                        continue; // Duplicate point: the index keeps the first rate
+                    }
+                    categoryList.add(category);
+                    pointList.add(scalePoint);
+                    rateList.add(rate);
+                    if (!distinct.contains(category)) {
+                        distinct.add(category);
+                    }
+                } catch (NumberFormatException e) {
+                    // Not a scale point row
+                }
+            }
+        }
+        if (categoryList.isEmpty()) {
+            throw new IllegalArgumentException("No salary scale rows found in " + salaryFile.getName() + ".");
+        }
+
+        categories = categoryList.toArray(new String[0]);
+        scalePoints = new int[pointList.size()];
+        annualRates = new double[rateList.size()];
+        for (int i = 0; i < categories.length; i++) {
+            scalePoints[i] = pointList.get(i);
+            annualRates[i] = rateList.get(i);
+        }
+        distinctCategories = distinct.toArray(new String[0]);
+        firstRatesYear = TaxRates.reload().firstKey();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: java PayrollDatasetGenerator <outputDir> [employees] [years] [seed] [firstYear]");
+            return;
+        }
+        File directory = new File(args[0]);
+        int employees = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        int years = args.length > 2 ? Integer.parseInt(args[2]) : 2;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 42;
+        int firstYear = args.length > 4 ? Integer.parseInt(args[4]) : 2023;
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            System.err.println("Could not create " + directory + ".");
+            return;
+        }
+
+        PayrollDatasetGenerator generator = new PayrollDatasetGenerator(new File(SALARY_FILE), seed);
+        long start = System.nanoTime();
+        generator.writeRoster(new File(directory, "Employees.csv"), new File(directory, "PartTimeEmployees.csv"), employees);
+        System.out.printf("Wrote %,d employees in %.1f s%n", employees, (System.nanoTime() - start) / 1e9);
+
+        File payslipsFile = new File(directory, "Payslips.csv");
+        payslipsFile.delete(); // PayslipWriter appends
+        generator.writePayslipHistory(payslipsFile, employees, YearMonth.of(firstYear, 1), years * 12);
+    }
+
+    // Writes employees 1..employees to the two roster files, replacing them
+    public void writeRoster(File employeesFile, File partTimeFile, int employees) throws IOException {
+        StringBuilder row = new StringBuilder(160);
+        try (BufferedWriter employeesOut = new BufferedWriter(new FileWriter(employeesFile), 1 << 16);
+             BufferedWriter partTimeOut = new BufferedWriter(new FileWriter(partTimeFile), 1 << 16)) {
+            employeesOut.write("name,employeeId,employeeType,employeePosition,salary,salaryPoint,lastPromotionDate,healthInsuranceRate\n");
+            partTimeOut.write("employeeId,hourlyRate,hoursWorked,paymentRequestSubmitted\n");
+
+            for (int id = 1; id <= employees; id++) {
+                Employee employee = employee(id, null);
+
+                row.setLength(0);
+                row.append(employee.getName()).append(',')
+                        .append(id).append(',')
+                        .append(employee.getEmployeeType()).append(',')
+                        .append(employee.getEmployeePosition()).append(',');
+                Money.append(row, Money.toCents(employee.getSalary()));
+                row.append(',').append(employee.getSalaryPoint()).append(',')
+                        .append(employee.getLastPromotionDate()).append(',');
+                Money.append(row, Money.toCents(employee.getHealthInsuranceRate()));
+                row.append('\n');
+                employeesOut.append(row);
+
+                if (employee instanceof PartTimeEmployee) {
+                    PartTimeEmployee partTimeEmployee = (PartTimeEmployee) employee;
+                    row.setLength(0);
+                    row.append(id).append(',');
+                    Money.append(row, Money.toCents(partTimeEmployee.getHourlyRate()));
+                    row.append(',').append(partTimeEmployee.getHoursWorked())
+                            .append(',').append(partTimeEmployee.isPaymentRequestSubmitted())
+                            .append('\n');
+                    partTimeOut.append(row);
+                }
+            }
+        }
+    }
+
+    // Appends one payslip per employee per month, month by month as month-end runs would; returns the row count
+    public long writePayslipHistory(File payslipsFile, int employees, YearMonth firstMonth, int months) throws IOException {
+        try (PayslipWriter writer = new PayslipWriter(payslipsFile)) {
+            for (int m = 0; m < months; m++) {
+                YearMonth month = firstMonth.plusMonths(m);
+                LocalDate payDate = month.atDay(PAY_DAY);
+                TaxRates rates = TaxRates.forYear(Math.max(month.getYear(), firstRatesYear));
+
+                for (int id = 1; id <= employees; id++) {
+                    Employee employee = employee(id, month);
+                    DeductionBreakdown deductions = employee.getDeductionsCalculator().calculateDeductions(employee, rates);
+                    writer.write(new Payslip(id, employee.getName(), payDate, deductions));
+                }
+            }
+            return writer.getRowsWritten();
+        }
+    }
+
+    // The employee with this ID; part-time hours are those of the given month, or of the roster when month is null
+    private Employee employee(int id, YearMonth month) {
+        SplittableRandom random = new SplittableRandom(seed ^ (id * 0x9E3779B97F4A7C15L));
+        String name = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " " + LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+        LocalDate lastPromotionDate = LocalDate.of(2015, 1, 1).plusDays(random.nextInt(3650));
+
+        if (random.nextDouble() < PART_TIME_SHARE) {
+            String position = distinctCategories[random.nextInt(distinctCategories.length)];
+            double hourlyRate = (1200 + random.nextInt(4800)) / 100.0;
+            boolean paymentRequestSubmitted = random.nextBoolean();
+            int hoursWorked = month == null ? random.nextInt(161) : monthlyHours(id, month);
+            return new PartTimeEmployee(name, id, position, hourlyRate, hoursWorked, lastPromotionDate, paymentRequestSubmitted);
+        }
+
+        int scale = random.nextInt(categories.length);
+        double healthInsuranceRate = random.nextInt(31) / 2.0; // 0% to 15% in half-point steps
+        return new Employee(name, id, Employee.EmployeeType.FULL_TIME, categories[scale],
+                annualRates[scale], scalePoints[scale], lastPromotionDate, healthInsuranceRate);
+    }
+
+    private int monthlyHours(int id, YearMonth month) {
+        long monthIndex = month.getYear() * 12L + month.getMonthValue();
+        return new SplittableRandom(seed ^ (id * 0x9E3779B97F4A7C15L) ^ (monthIndex * 0xC2B2AE3D27D4EB4FL)).nextInt(161);
+    }
+}
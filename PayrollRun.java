@@ -0,0 +1,309 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Spliterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+/*
+Month-end payroll run, pipelined so that reading the roster, computing payslips and writing them all
+happen at the same time.
+
+  parser thread   takes the employees from a list or a streaming source (see EmployeeCsvSpliterator)
+                  in fixed-size batches
+  workers         a pool of threads computing each batch's payslips (DeductionsCalculator)
+  writer          the calling thread, the only one to touch the PayslipWriter
+
+The stages are connected by two bounded queues: a work queue from the parser to the workers, and a
+write queue holding every parsed batch in order until it has been written. The writer takes the batches
+back in parse order, so the rows in Payslips.csv come out in exactly the same order as a sequential run.
+A full queue blocks the parser, so a slow disk or a slow calculation holds the reading back rather than
+letting batches pile up, and a streamed run holds a few thousand employees in memory however large the
+roster is. Queue depths and the time each stage spends busy and blocked are collected in
+PayrollRunMetrics (see getMetrics).
+
+Configuration (system properties):
+  payroll.executor     FORK_JOIN (default) or VIRTUAL_THREADS
+  payroll.parallelism  number of workers, defaults to the number of available processors
+  payroll.batchSize    employees per batch, defaults to 1024
+  payroll.incremental  true to reuse last month's results for unchanged employees (see IncrementalPayroll)
+  payroll.metrics      true for the CLI to print the run's PayrollRunMetrics
+ */
+public class PayrollRun {
+
+    public enum ExecutorKind {
+        FORK_JOIN,
+        VIRTUAL_THREADS
+    }
+
+    private static final int DEFAULT_BATCH_SIZE = 1024;
+    private static final int BATCHES_IN_FLIGHT_PER_WORKER = 4;   // write queue: parsed but not yet written
+    private static final int WORK_QUEUE_BATCHES_PER_WORKER = 2;  // work queue: parsed but not yet picked up
+
+    private final ExecutorKind executorKind;
+    private final int parallelism;
+    private final int batchSize;
+    private volatile PayrollRunMetrics metrics;
+
+    public PayrollRun(ExecutorKind executorKind, int parallelism, int batchSize) {
+        if (parallelism < 1 || batchSize < 1) {
+            throw new IllegalArgumentException("Parallelism and batch size must be at least 1.");
+        }
+        this.executorKind = executorKind;
+        this.parallelism = parallelism;
+        this.batchSize = batchSize;
+    }
+
+    // Run configured from the payroll.* system properties
+    public static PayrollRun fromSystemProperties() {
+        ExecutorKind executorKind = ExecutorKind.valueOf(
+                System.getProperty("payroll.executor", ExecutorKind.FORK_JOIN.name()).trim().toUpperCase(Locale.ROOT));
+        int parallelism = Integer.getInteger("payroll.parallelism", Runtime.getRuntime().availableProcessors());
+        int batchSize = Integer.getInteger("payroll.batchSize", DEFAULT_BATCH_SIZE);
+        return new PayrollRun(executorKind, parallelism, batchSize);
+    }
+
+    // Month-end run straight from the CSV roster, streamed rather than loaded, e.g. for a roster too large
+    // for the interactive CLI. Configured by the payroll.* properties above.
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.out.println("Usage: java PayrollRun <Employees.csv> <PartTimeEmployees.csv> <Payslips.csv>");
+            return;
+        }
+        PayrollRun run = fromSystemProperties();
+        PayslipWriter writer = new PayslipWriter(new File(args[2]));
+        try (Stream<Employee> employees = CSVHandler.streamEmployeesFromCSV(new File(args[0]), new File(args[1]));
+             writer) {
+            run.run(employees.spliterator(), writer, null);
+        }
+        System.out.println(writer.getThroughput());
+        System.out.println(run.getMetrics());
+    }
+
+    // Generates a payslip for every employee and writes them in list order; returns the number written
+    public long run(List<Employee> employees, PayslipWriter writer) throws IOException {
+        return run(employees, writer, null);
+    }
+
+    // Same, computing through the incremental payroll (when not null) and recording every payslip written
+    public long run(List<Employee> employees, PayslipWriter writer, IncrementalPayroll incremental) throws IOException {
+        return run(employees.spliterator(), writer, incremental);
+    }
+
+    // Same, pulling employees from the source a batch at a time as the run goes, e.g. from an
+    // EmployeeCsvSpliterator, so the roster never has to be loaded up front. The source is only used on
+    // the parser thread, and is finished with by the time this returns.
+    public long run(Spliterator<Employee> employees, PayslipWriter writer, IncrementalPayroll incremental)
+            throws IOException {
+        int workQueueCapacity = parallelism * WORK_QUEUE_BATCHES_PER_WORKER;
+        int writeQueueCapacity = parallelism * BATCHES_IN_FLIGHT_PER_WORKER;
+        BlockingQueue<Batch> workQueue = new ArrayBlockingQueue<>(workQueueCapacity);
+        BlockingQueue<Batch> writeQueue = new ArrayBlockingQueue<>(writeQueueCapacity);
+        PayrollRunMetrics runMetrics = new PayrollRunMetrics(workQueueCapacity, writeQueueCapacity);
+        metrics = runMetrics;
+
+        ExecutorService workers = newExecutor();
+        Thread parser = new Thread(() -> parse(employees, workQueue, writeQueue, runMetrics), "payroll-parser");
+        parser.setDaemon(true);
+        try {
+            for (int i = 0; i < parallelism; i++) {
+                workers.execute(() -> compute(workQueue, incremental, runMetrics));
+            }
+            parser.start();
+            return write(writeQueue, writer, incremental, runMetrics);
+        } finally {
+            // Only needed when the writer stopped early: unblocks the parser and the workers
+            parser.interrupt();
+            workers.shutdownNow();
+            joinUninterruptibly(parser);
+            runMetrics.finished();
+        }
+    }
+
+    // Metrics of the run in progress, or of the last run; null before the first run
+    public PayrollRunMetrics getMetrics() {
+        return metrics;
+    }
+
+    private ExecutorService newExecutor() {
+        if (executorKind == ExecutorKind.VIRTUAL_THREADS) {
+            return Executors.newVirtualThreadPerTaskExecutor();
+        }
+        return new ForkJoinPool(parallelism);
+    }
+
+    // Parser stage: cuts the source into batches and queues each one twice, first for the writer (which
+    // fixes the output order) and then for the workers. Both queues are bounded, so the parser blocks,
+    // rather than reading ahead, when the workers or the writer fall behind.
+    private void parse(Spliterator<Employee> employees, BlockingQueue<Batch> workQueue,
+                       BlockingQueue<Batch> writeQueue, PayrollRunMetrics runMetrics) {
+        try {
+            try {
+                while (true) {
+                    long start = System.nanoTime();
+                    Employee[] next = nextBatch(employees);
+                    long parsed = System.nanoTime();
+                    if (next == null) {
+                        break;
+                    }
+                    Batch batch = new Batch(next, parsed);
+                    put(writeQueue, batch, runMetrics);
+                    put(workQueue, batch, runMetrics);
+                    runMetrics.batchParsed(next.length, parsed - start, workQueue.size(), writeQueue.size());
+                }
+            } catch (RuntimeException | Error e) {
+                put(writeQueue, Batch.failed(e), runMetrics); // Reported by the writer, in order
+            }
+            put(writeQueue, Batch.END, runMetrics);
+            for (int i = 0; i < parallelism; i++) {
+                put(workQueue, Batch.END, runMetrics);
+            }
+        } catch (InterruptedException e) {
+            // The writer gave up on the run
+        }
+    }
+
+    private static void put(BlockingQueue<Batch> queue, Batch batch, PayrollRunMetrics runMetrics)
+            throws InterruptedException {
+        if (!queue.offer(batch)) {
+            long start = System.nanoTime();
+            queue.put(batch);
+            runMetrics.parserBlocked(System.nanoTime() - start);
+        }
+    }
+
+    // Up to batchSize employees from the source, or null once it is exhausted
+    private Employee[] nextBatch(Spliterator<Employee> employees) {
+        Employee[] batch = new Employee[batchSize];
+        int[] count = {0};
+        while (count[0] < batchSize && employees.tryAdvance(employee -> batch[count[0]++] = employee)) {
+            // Filled by the action
+        }
+        if (count[0] == 0) {
+            return null;
+        }
+        return count[0] == batchSize ? batch : Arrays.copyOf(batch, count[0]);
+    }
+
+    // Worker stage: computes batches until the parser signals the end of the roster
+    private static void compute(BlockingQueue<Batch> workQueue, IncrementalPayroll incremental,
+                                PayrollRunMetrics runMetrics) {
+        try {
+            while (true) {
+                long start = System.nanoTime();
+                Batch batch = workQueue.take();
+                long taken = System.nanoTime();
+                runMetrics.workerIdle(taken - start);
+                if (batch == Batch.END) {
+                    return;
+                }
+
+                try {
+                    Payslip[] payslips = new Payslip[batch.employees.length];
+                    for (int i = 0; i < payslips.length; i++) {
+                        Employee employee = batch.employees[i];
+                        payslips[i] = incremental == null
+                                ? PayrollSystem.generateMonthlyPayslips(employee)
+                                : incremental.generate(employee);
+                    }
+                    batch.payslips = payslips;
+                } catch (RuntimeException | Error e) {
+                    batch.failure = e; // Errors too, or the writer would wait for this batch forever
+                } finally {
+                    batch.computed.countDown();
+                }
+                runMetrics.batchComputed(System.nanoTime() - taken);
+            }
+        } catch (InterruptedException e) {
+            // The run is being shut down
+        }
+    }
+
+    // Writer stage, on the calling thread: writes batches in parse order as each one is computed
+    private static long write(BlockingQueue<Batch> writeQueue, PayslipWriter writer, IncrementalPayroll incremental,
+                              PayrollRunMetrics runMetrics) throws IOException {
+        long written = 0;
+        try {
+            while (true) {
+                long start = System.nanoTime();
+                Batch batch = writeQueue.take();
+                if (batch == Batch.END) {
+                    return written;
+                }
+                batch.computed.await();
+                long ready = System.nanoTime();
+                runMetrics.writerWaited(ready - start);
+
+                if (batch.failure != null) {
+                    if (batch.failure instanceof UncheckedIOException) {
+                        throw ((UncheckedIOException) batch.failure).getCause(); // The source failed to read the roster
+                    }
+                    if (batch.failure instanceof Error) {
+                        throw (Error) batch.failure;
+                    }
+                    throw (RuntimeException) batch.failure;
+                }
+                for (int i = 0; i < batch.payslips.length; i++) {
+                    writer.write(batch.payslips[i]);
+                    if (incremental != null) {
+                        incremental.record(batch.employees[i], batch.payslips[i]);
+                    }
+                }
+                written += batch.payslips.length;
+                long end = System.nanoTime();
+                runMetrics.batchWritten(end - ready, end - batch.parsedNanos);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Payroll run interrupted.");
+        }
+    }
+
+    private static void joinUninterruptibly(Thread thread) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                thread.join();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // A batch of employees and, once computed, their payslips index for index
+    private static class Batch {
+        static final Batch END = new Batch(null, 0);
+
+        final Employee[] employees;
+        final long parsedNanos;
+        final CountDownLatch computed = new CountDownLatch(1);
+        Payslip[] payslips;        // Published to the writer by computed
+        Throwable failure;         // Likewise: a RuntimeException or an Error
+
+        Batch(Employee[] employees, long parsedNanos) {
+            this.employees = employees;
+            this.parsedNanos = parsedNanos;
+        }
+
+        // Stands in the write queue for a batch the parser could not read
+        static Batch failed(Throwable failure) {
+            Batch batch = new Batch(null, System.nanoTime());
+            batch.failure = failure;
+            batch.computed.countDown();
+            return batch;
+        }
+    }
+}
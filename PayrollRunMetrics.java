@@ -0,0 +1,183 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+Counters for one pipelined PayrollRun, readable while the run is in progress.
+
+Each stage's time is split into busy time (parsing, computing, writing) and blocked time:
+  parser blocked   waiting for room in a full queue, i.e. backpressure from the workers or the writer
+  workers idle     waiting for the parser to hand them a batch
+  writer waiting   waiting for the next batch in order to finish computing
+Queue depths are sampled each time a batch is queued. Batch latency is the time from a batch being
+parsed to its last payslip being written.
+ */
+public class PayrollRunMetrics {
+
+    private final int workQueueCapacity;
+    private final int writeQueueCapacity;
+
+    private final LongAdder employees = new LongAdder();
+    private final LongAdder batchesParsed = new LongAdder();
+    private final LongAdder batchesWritten = new LongAdder();
+
+    private final LongAdder parseNanos = new LongAdder();
+    private final LongAdder parserBlockedNanos = new LongAdder();
+    private final LongAdder computeNanos = new LongAdder();
+    private final LongAdder workerIdleNanos = new LongAdder();
+    private final LongAdder writeNanos = new LongAdder();
+    private final LongAdder writerWaitNanos = new LongAdder();
+
+    private final LongAdder workQueueDepthTotal = new LongAdder();
+    private final AtomicLong workQueueDepthMax = new AtomicLong();
+    private final LongAdder writeQueueDepthTotal = new LongAdder();
+    private final AtomicLong writeQueueDepthMax = new AtomicLong();
+
+    private final LongAdder latencyNanosTotal = new LongAdder();
+    private final AtomicLong latencyNanosMax = new AtomicLong();
+
+    private final long startNanos = System.nanoTime();
+    private volatile long endNanos;
+
+    PayrollRunMetrics(int workQueueCapacity, int writeQueueCapacity) {
+        this.workQueueCapacity = workQueueCapacity;
+        this.writeQueueCapacity = writeQueueCapacity;
+    }
+
+    void batchParsed(int size, long nanos, int workQueueDepth, int writeQueueDepth) {
+        employees.add(size);
+        batchesParsed.increment();
+        parseNanos.add(nanos);
+        workQueueDepthTotal.add(workQueueDepth);
+        workQueueDepthMax.accumulateAndGet(workQueueDepth, Math::max);
+        writeQueueDepthTotal.add(writeQueueDepth);
+        writeQueueDepthMax.accumulateAndGet(writeQueueDepth, Math::max);
+    }
+
+    void parserBlocked(long nanos) {
+        parserBlockedNanos.add(nanos);
+    }
+
+    void batchComputed(long nanos) {
+        computeNanos.add(nanos);
+    }
+
+    void workerIdle(long nanos) {
+        workerIdleNanos.add(nanos);
+    }
+
+    void writerWaited(long nanos) {
+        writerWaitNanos.add(nanos);
+    }
+
+    void batchWritten(long nanos, long latencyNanos) {
+        batchesWritten.increment();
+        writeNanos.add(nanos);
+        latencyNanosTotal.add(latencyNanos);
+        latencyNanosMax.accumulateAndGet(latencyNanos, Math::max);
+    }
+
+    void finished() {
+        endNanos = System.nanoTime();
+    }
+
+    public long getEmployeesParsed() {
+        return employees.sum();
+    }
+
+    public long getBatchesParsed() {
+        return batchesParsed.sum();
+    }
+
+    public long getBatchesWritten() {
+        return batchesWritten.sum();
+    }
+
+    public int getWorkQueueCapacity() {
+        return workQueueCapacity;
+    }
+
+    public int getWriteQueueCapacity() {
+        return writeQueueCapacity;
+    }
+
+    public double getAverageWorkQueueDepth() {
+        return average(workQueueDepthTotal.sum(), batchesParsed.sum());
+    }
+
+    public long getMaxWorkQueueDepth() {
+        return workQueueDepthMax.get();
+    }
+
+    public double getAverageWriteQueueDepth() {
+        return average(writeQueueDepthTotal.sum(), batchesParsed.sum());
+    }
+
+    public long getMaxWriteQueueDepth() {
+        return writeQueueDepthMax.get();
+    }
+
+    public long getParseNanos() {
+        return parseNanos.sum();
+    }
+
+    public long getParserBlockedNanos() {
+        return parserBlockedNanos.sum();
+    }
+
+    // Summed over all workers
+    public long getComputeNanos() {
+        return computeNanos.sum();
+    }
+
+    // Summed over all workers
+    public long getWorkerIdleNanos() {
+        return workerIdleNanos.sum();
+    }
+
+    public long getWriteNanos() {
+        return writeNanos.sum();
+    }
+
+    public long getWriterWaitNanos() {
+        return writerWaitNanos.sum();
+    }
+
+    public double getAverageBatchLatencyNanos() {
+        return average(latencyNanosTotal.sum(), batchesWritten.sum());
+    }
+
+    public long getMaxBatchLatencyNanos() {
+        return latencyNanosMax.get();
+    }
+
+    // Wall-clock time of the run so far, or of the whole run once it has finished
+    public long getElapsedNanos() {
+        long end = endNanos;
+        return (end == 0 ? System.nanoTime() : end) - startNanos;
+    }
+
+    private static double average(long total, long count) {
+        return count == 0 ? 0 : (double) total / count;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Payroll run: %,d employees in %,d batches, %.1f s%n"
+                        + "  parser   busy %,d ms, blocked %,d ms%n"
+                        + "  workers  busy %,d ms, idle %,d ms (all workers)%n"
+                        + "  writer   busy %,d ms, waiting %,d ms%n"
+                        + "  queues   work avg %.1f / max %d of %d, write avg %.1f / max %d of %d%n"
+                        + "  batch latency avg %.1f ms, max %.1f ms",
+                getEmployeesParsed(), getBatchesParsed(), getElapsedNanos() / 1e9,
+                millis(getParseNanos()), millis(getParserBlockedNanos()),
+                millis(getComputeNanos()), millis(getWorkerIdleNanos()),
+                millis(getWriteNanos()), millis(getWriterWaitNanos()),
+                getAverageWorkQueueDepth(), getMaxWorkQueueDepth(), workQueueCapacity,
+                getAverageWriteQueueDepth(), getMaxWriteQueueDepth(), writeQueueCapacity,
+                getAverageBatchLatencyNanos() / 1e6, getMaxBatchLatencyNanos() / 1e6);
+    }
+
+    private static long millis(long nanos) {
+        return nanos / 1_000_000;
+    }
+}
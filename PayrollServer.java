@@ -0,0 +1,271 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/*
+Resident payroll service: loads the roster, salary scales, payslip index and tax rates once at startup,
+then serves the CLI's employee, admin and HR operations over HTTP on the loopback interface, so each
+login or menu action no longer reloads anything. Employee updates are written through to the store in
+the background (see EmployeeWriteBehind). Start the CLI with -Dpayroll.server=http://127.0.0.1:<port>
+to use it as a thin client.
+
+Usage: java PayrollServer [port]   (default 8085)
+
+Only the user running the server may call it. At startup the server writes a random token to
+Payroll.token in the working directory, readable by that user only, and every request must carry it in
+an X-Payroll-Token header; RemotePayrollService reads it from there. Requests with an Origin header, which
+browsers add to cross-site requests, are refused as well, so a web page cannot drive the server. Both
+get 403. The file is deleted when the server stops.
+
+Requests and responses are plain text; parameters are form-encoded, in the query string or the body.
+  GET  /employees/{id}                    employee details
+  GET  /employees/{id}/part-time          true or false
+  GET  /employees/{id}/payment-request    true or false: submitted this month
+  GET  /employees/{id}/payslips           one payslip per line, oldest first
+  POST /employees/{id}/payment-request    hours
+  POST /employees/{id}/promotion          position, scalePoint
+  POST /employees                         name, type (FULL_TIME or PART_TIME), position,
+                                          scalePoint and healthInsuranceRate, or hourlyRate; returns the ID
+  POST /imports                           path of a staging CSV on this machine
+  POST /payroll-runs                      month-end run
+  POST /shutdown                          finishes queued writes, saves the CSV files and stops
+Invalid requests get 400 with the message for the user, storage failures 500.
+ */
+public class PayrollServer {
+
+    public static final int DEFAULT_PORT = 8085;
+    public static final String TOKEN_HEADER = "X-Payroll-Token";
+    public static final File TOKEN_FILE = new File("Payroll.token");
+
+    private final LocalPayrollService service;
+    private final EmployeeWriteBehind writeBehind;
+    private final HttpServer server;
+    private final ExecutorService handlers;
+    private final String token;
+    private boolean stopped;
+
+    public PayrollServer(int port) throws IOException {
+        long start = System.nanoTime();
+        EmployeeRepository repository = EmployeeRepository.getDefault();
+        SalaryScaleIndex.getInstance().load();
+        int payslipRows = PayslipLedger.getDefault().size(); // Brings the payslip index up to date
+        TaxRates.current();
+        System.out.printf("Loaded %,d employees and %,d payslips in %d ms.%n",
+                repository.size(), payslipRows, (System.nanoTime() - start) / 1_000_000);
+
+        this.writeBehind = new EmployeeWriteBehind(repository);
+        this.service = new LocalPayrollService(writeBehind);
+        this.handlers = Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors()));
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.setExecutor(handlers);
+
+        byte[] random = new byte[32];
+        new SecureRandom().nextBytes(random);
+        this.token = HexFormat.of().formatHex(random);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        PayrollServer payrollServer = new PayrollServer(port);
+        Runtime.getRuntime().addShutdownHook(new Thread(payrollServer::stop));
+        payrollServer.start();
+        System.out.println("Payroll service listening on http://127.0.0.1:" + payrollServer.getPort());
+    }
+
+    // Publishes the access token, then starts taking requests
+    public void start() throws IOException {
+        writeToken(TOKEN_FILE.toPath(), token);
+        server.createContext("/", this::handle); // Here rather than in the constructor, so this never escapes it
+        server.start();
+    }
+
+    // The token a running server in this directory expects, for clients
+    public static String readToken() throws IOException {
+        if (!TOKEN_FILE.isFile()) {
+            throw new IOException(TOKEN_FILE.getName() + " not found; is the payroll server running in this directory?");
+        }
+        return Files.readString(TOKEN_FILE.toPath(), StandardCharsets.UTF_8).trim();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    // Stops taking requests, finishes queued writes and saves the CSV files
+    public void stop() {
+        synchronized (this) {
+            if (stopped) {
+                return;
+            }
+            stopped = true;
+        }
+        server.stop(1);
+        handlers.shutdown();
+        TOKEN_FILE.delete();
+        try {
+            service.close();
+            System.out.println("Payroll service stopped; employees saved.");
+        } catch (IOException e) {
+            System.err.println("Error writing employees to CSV: " + e.getMessage());
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        if (exchange.getRequestHeaders().containsKey("Origin")) {
+            respond(exchange, 403, "Requests from web pages are not accepted.");
+            return;
+        }
+        String presented = exchange.getRequestHeaders().getFirst(TOKEN_HEADER);
+        if (presented == null || !MessageDigest.isEqual(presented.getBytes(StandardCharsets.UTF_8),
+                token.getBytes(StandardCharsets.UTF_8))) {
+            respond(exchange, 403, "Missing or wrong " + TOKEN_HEADER + "; the token is in " + TOKEN_FILE.getName() + ".");
+            return;
+        }
+        try {
+            String response = route(exchange.getRequestMethod(), exchange.getRequestURI().getRawPath().split("/"),
+                    parameters(exchange));
+            respond(exchange, 200, response);
+        } catch (IllegalArgumentException e) {
+            respond(exchange, 400, e.getMessage());
+        } catch (IOException | RuntimeException e) {
+            respond(exchange, 500, e.getMessage());
+        }
+        if (stopRequested(exchange)) {
+            new Thread(this::stop, "payroll-shutdown").start(); // After the response has gone out
+        }
+    }
+
+    // path[0] is the empty segment before the leading slash
+    private String route(String method, String[] path, Map<String, String> parameters) throws IOException {
+        boolean get = method.equals("GET");
+        boolean post = method.equals("POST");
+
+        if (path.length >= 3 && path[1].equals("employees")) {
+            int employeeId = intParameter(path[2], "employee ID");
+            String action = path.length > 3 ? path[3] : "";
+            if (get && action.isEmpty()) {
+                return service.describeEmployee(employeeId);
+            } else if (get && action.equals("part-time")) {
+                return Boolean.toString(service.isPartTime(employeeId));
+            } else if (get && action.equals("payment-request")) {
+                return Boolean.toString(service.isPaymentRequestSubmitted(employeeId));
+            } else if (get && action.equals("payslips")) {
+                return lines(service.listPayslips(employeeId));
+            } else if (post && action.equals("payment-request")) {
+                return service.submitPaymentRequest(employeeId, intParameter(required(parameters, "hours"), "hours"));
+            } else if (post && action.equals("promotion")) {
+                return service.promoteEmployee(employeeId, required(parameters, "position"),
+                        intParameter(required(parameters, "scalePoint"), "scale point"));
+            }
+        } else if (path.length == 2 && path[1].equals("employees") && post) {
+            return Integer.toString(createEmployee(parameters));
+        } else if (path.length == 2 && path[1].equals("imports") && post) {
+            return lines(service.importEmployees(required(parameters, "path")));
+        } else if (path.length == 2 && path[1].equals("payroll-runs") && post) {
+            return lines(service.generateMonthlyPayslips());
+        } else if (path.length == 2 && path[1].equals("shutdown") && post) {
+            return "Shutting down.";
+        }
+        throw new IllegalArgumentException("Unknown request: " + method + " " + String.join("/", path));
+    }
+
+    private int createEmployee(Map<String, String> parameters) throws IOException {
+        String name = required(parameters, "name");
+        String position = required(parameters, "position");
+        Employee.EmployeeType type = Employee.EmployeeType.valueOf(required(parameters, "type"));
+        if (type == Employee.EmployeeType.PART_TIME) {
+            return service.createPartTimeEmployee(name, position,
+                    Double.parseDouble(required(parameters, "hourlyRate")));
+        }
+        return service.createFullTimeEmployee(name, position,
+                intParameter(required(parameters, "scalePoint"), "scale point"),
+                Double.parseDouble(required(parameters, "healthInsuranceRate")));
+    }
+
+    // Created readable and writable by the owner only, where the file system supports it
+    private static void writeToken(Path path, String token) throws IOException {
+        Files.deleteIfExists(path);
+        try {
+            Files.createFile(path, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        } catch (UnsupportedOperationException e) {
+            Files.createFile(path);
+            File file = path.toFile();
+            file.setReadable(false, false);
+            file.setWritable(false, false);
+            file.setReadable(true, true);
+            file.setWritable(true, true);
+        }
+        Files.writeString(path, token, StandardCharsets.UTF_8);
+    }
+
+    private static boolean stopRequested(HttpExchange exchange) {
+        return exchange.getRequestMethod().equals("POST") && exchange.getRequestURI().getPath().equals("/shutdown");
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = (body == null ? "" : body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    // Query string and form body parameters together
+    private static Map<String, String> parameters(HttpExchange exchange) throws IOException {
+        Map<String, String> parameters = new HashMap<>();
+        parseForm(exchange.getRequestURI().getRawQuery(), parameters);
+        parseForm(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8), parameters);
+        return parameters;
+    }
+
+    private static void parseForm(String form, Map<String, String> parameters) {
+        if (form == null || form.isEmpty()) {
+            return;
+        }
+        for (String pair : form.split("&")) {
+            int equals = pair.indexOf('=');
+            String key = equals < 0 ? pair : pair.substring(0, equals);
+            String value = equals < 0 ? "" : pair.substring(equals + 1);
+            parameters.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+    }
+
+    private static String required(Map<String, String> parameters, String name) {
+        String value = parameters.get(name);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing parameter: " + name);
+        }
+        return value;
+    }
+
+    private static int intParameter(String value, String description) {
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + description + ": " + value);
+        }
+    }
+
+    private static String lines(List<String> lines) {
+        return String.join("\n", lines);
+    }
+}
@@ -0,0 +1,39 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+// The employee, admin and HR operations behind the CLI menus.
+// LocalPayrollService runs them in-process against the warm roster; RemotePayrollService sends them to
+// a PayrollServer, so the CLI can run as a thin client. Invalid input and unknown employees are reported
+// as IllegalArgumentException, with a message meant for the user; storage failures as IOException.
+public interface PayrollService extends Closeable {
+
+    // Employee details, as shown by "View Details"
+    String describeEmployee(int employeeId) throws IOException;
+
+    boolean isPartTime(int employeeId) throws IOException;
+
+    boolean isPaymentRequestSubmitted(int employeeId) throws IOException;
+
+    // The employee's payslips, oldest first
+    List<String> listPayslips(int employeeId) throws IOException;
+
+    // Records a part-time employee's hours for the month; returns the confirmation for the user
+    String submitPaymentRequest(int employeeId, int hoursWorked) throws IOException;
+
+    // Creates a full-time employee on a salary scale point; returns the new employee's ID
+    int createFullTimeEmployee(String name, String position, int scalePoint, double healthInsuranceRate)
+            throws IOException;
+
+    // Creates a part-time employee; returns the new employee's ID
+    int createPartTimeEmployee(String name, String position, double hourlyRate) throws IOException;
+
+    // Imports a staging CSV (see BulkEmployeeImport); returns the summary and any rejected rows
+    List<String> importEmployees(String stagingFilePath) throws IOException;
+
+    // Moves a full-time employee to a new position and scale point
+    String promoteEmployee(int employeeId, String position, int scalePoint) throws IOException;
+
+    // Month-end run for all employees; returns the messages for the user
+    List<String> generateMonthlyPayslips() throws IOException;
+}
@@ -4,11 +4,12 @@ public class Payslip {
     private int employeeId; // Added employeeId for precise mapping
     private String employeeName;
     private LocalDate payDate;
-    private double grossPay;
-    private double netPay;
+    private long grossPay; // cents
+    private long netPay;   // cents
+    private DeductionBreakdown deductions; // Only known for payslips generated in this session
 
-    // Constructs a Payslip
-    public Payslip(int employeeId, String employeeName, LocalDate payDate, double grossPay, double netPay) {
+    // Constructs a Payslip; amounts are in cents (see Money)
+    public Payslip(int employeeId, String employeeName, LocalDate payDate, long grossPay, long netPay) {
         this.employeeId = employeeId;
         this.employeeName = employeeName;
         this.payDate = payDate;
@@ -16,6 +17,12 @@ public class Payslip {
         this.netPay = netPay;
     }
 
+    // Constructs a Payslip from an itemised deduction breakdown
+    public Payslip(int employeeId, String employeeName, LocalDate payDate, DeductionBreakdown deductions) {
+        this(employeeId, employeeName, payDate, deductions.getMonthlyEarnings(), deductions.getNetPay());
+        this.deductions = deductions;
+    }
+
     // Getters and Setters
     public int getEmployeeId() {
         return employeeId;
@@ -41,25 +48,33 @@ public class Payslip {
         this.payDate = payDate;
     }
 
-    public double getGrossPay() {
+    public long getGrossPay() {
         return grossPay;
     }
 
-    public void setGrossPay(double grossPay) {
+    public void setGrossPay(long grossPay) {
         this.grossPay = grossPay;
     }
 
-    public double getNetPay() {
+    public long getNetPay() {
         return netPay;
     }
 
-    public void setNetPay(double netPay) {
+    public void setNetPay(long netPay) {
         this.netPay = netPay;
     }
 
+    public DeductionBreakdown getDeductions() {
+        return deductions;
+    }
+
+    public void setDeductions(DeductionBreakdown deductions) {
+        this.deductions = deductions;
+    }
+
     @Override
     public String toString() {
         return "Payslip [Employee ID: " + employeeId + ", Name: " + employeeName + ", Date: " + payDate +
-                ", Gross Pay: €" + String.format("%.2f", grossPay) + ", Net Pay: €" + String.format("%.2f", netPay) + "]";
+                ", Gross Pay: €" + Money.format(grossPay) + ", Net Pay: €" + Money.format(netPay) + "]";
     }
 }
@@ -0,0 +1,726 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/*
+Columnar, compressed archive of the payslips for closed pay periods, so Payslips.csv only holds the
+open month instead of growing by a full roster of text rows every month.
+
+Archiving moves every row of Payslips.csv dated before a cut-off month (by default the current month)
+into one partition per pay month, in Payslips.csv.archive next to Payslips.csv, and rewrites Payslips.csv
+with the rows that remain. Rows that do not parse stay in Payslips.csv. Readers see the same payslips
+before and after: readPayslips(employeeId, ledger) returns an employee's archived payslips, oldest
+month first, followed by the ledger's.
+
+Partition file (<yyyy-MM>.g<generation>.pcol, big-endian):
+  header (32 bytes): magic, version, year, month, row count, block count, metadata length, CRC32 of metadata
+  metadata: the name dictionary (count, then each name as a 2-byte length and UTF-8), then per block:
+            first and last employee ID, row count, file offset, compressed length, CRC32 of the compressed bytes
+  blocks: up to BLOCK_ROWS rows each, Deflate-compressed, stored column by column:
+            employee IDs   varint delta from the previous row (rows are sorted by employee)
+            pay dates      zigzag varint delta in days from the previous row (the first from the 1st of the month)
+            names          varint index into the dictionary
+            gross, net     zigzag varint cents
+Rows keep their ledger order within an employee. A query for one employee binary-searches the block
+ID ranges and inflates only the blocks that can hold them.
+
+MANIFEST lists the partition file for each month. Partitions are never rewritten in place: archiving
+writes new generations, commits a new manifest naming them together with the rewritten Payslips.csv
+(still under a temporary name), then moves Payslips.csv into place. Opening the archive finishes that
+move if a crash interrupted it, and deletes partition files the manifest does not name.
+
+The archive directory's LOCK file is locked (FileLock) for the whole of an archive run, and by any
+process before it reloads the manifest, so the server cannot mistake a run still going on in the CLI
+for a crashed one and move its half-built ledger into place, or delete the partitions it is writing.
+Within a process the archive's own monitor does the same, so use one instance per ledger (getDefault). Rows appended
+to Payslips.csv while an archive runs are carried over to the rewritten file, but a PayslipWriter
+holding Payslips.csv open across the move would keep writing to the replaced file, so archive between
+payroll runs.
+
+Usage: java PayslipArchive [yyyy-MM]   archives the payslips dated before that month (default: this month)
+ */
+public class PayslipArchive {
+
+    private static final String LEDGER_FILE = "Payslips.csv";
+    private static final String ARCHIVE_SUFFIX = ".archive";
+    private static final String MANIFEST_FILE = "MANIFEST";
+    private static final String MANIFEST_HEADER = "payslip-archive 1";
+    private static final String LOCK_FILE = "LOCK";
+    private static final String PENDING_SUFFIX = ".archiving";
+    private static final String PARTITION_SUFFIX = ".pcol";
+    private static final String CSV_HEADER = "employeeId,employeeName,payDate,grossPay,netPay";
+
+    private static final int MAGIC = 0x50534152; // "PSAR"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int BLOCK_INDEX_ENTRY_SIZE = Integer.BYTES * 3 + Long.BYTES + Integer.BYTES * 2;
+    private static final int BLOCK_ROWS = 1024;
+
+    private static PayslipArchive defaultArchive;
+
+    private final File ledgerFile;
+    private final File directory;
+    private final File manifestFile;
+    private final File pendingLedgerFile;
+    private final File lockFile;
+
+    // Guarded by this
+    private TreeMap<YearMonth, Partition> partitions;
+    private long manifestModified = -1;
+    private int generation;
+
+    public PayslipArchive(File ledgerFile) {
+        this.ledgerFile = ledgerFile;
+        this.directory = new File(ledgerFile.getPath() + ARCHIVE_SUFFIX);
+        this.manifestFile = new File(directory, MANIFEST_FILE);
+        this.pendingLedgerFile = new File(ledgerFile.getPath() + PENDING_SUFFIX);
+        this.lockFile = new File(directory, LOCK_FILE);
+    }
+
+    // Archive of Payslips.csv in the working directory
+    public static synchronized PayslipArchive getDefault() {
+        if (defaultArchive == null) {
+            defaultArchive = new PayslipArchive(new File(LEDGER_FILE));
+        }
+        return defaultArchive;
+    }
+
+    public static void main(String[] args) throws IOException {
+        YearMonth before = args.length > 0 ? YearMonth.parse(args[0]) : YearMonth.now();
+        PayslipArchive archive = getDefault();
+        int archived = archive.archive(before);
+        System.out.println("Archived " + archived + " payslips dated before " + before + " into "
+                + archive.directory.getName() + ".");
+    }
+
+    // All archived payslips for the employee, oldest month first
+    public List<Payslip> readPayslips(int employeeId) throws IOException {
+        return readPayslips(employeeId, YearMonth.of(0, 1), YearMonth.of(9999, 12));
+    }
+
+    // The employee's archived payslips followed by those still in the ledger. Holding the archive's lock
+    // keeps an archive run from moving rows between the two halfway through the read.
+    public synchronized List<Payslip> readPayslips(int employeeId, PayslipLedger ledger) throws IOException {
+        List<Payslip> payslips = readPayslips(employeeId);
+        payslips.addAll(ledger.readPayslips(employeeId));
+        return payslips;
+    }
+
+    // The employee's archived payslips for pay months from..to inclusive, oldest month first
+    public synchronized List<Payslip> readPayslips(int employeeId, YearMonth from, YearMonth to) throws IOException {
+        refresh();
+        List<Payslip> payslips = new ArrayList<>();
+        for (Partition partition : partitions.subMap(from, true, to, true).values()) {
+            partition.read(employeeId, payslips);
+        }
+        return payslips;
+    }
+
+    // Every archived payslip for pay months from..to inclusive, by month and then employee
+    public synchronized List<Payslip> readPayslips(YearMonth from, YearMonth to) throws IOException {
+        refresh();
+        List<Payslip> payslips = new ArrayList<>();
+        for (Partition partition : partitions.subMap(from, true, to, true).values()) {
+            partition.readAll(payslips);
+        }
+        return payslips;
+    }
+
+    // Archived pay months, oldest first
+    public synchronized List<YearMonth> getMonths() throws IOException {
+        refresh();
+        return new ArrayList<>(partitions.keySet());
+    }
+
+    // Moves the payslips dated before the given month from Payslips.csv into the archive; returns how many
+    public synchronized int archive(YearMonth before) throws IOException {
+        FileChannel lock = lockDirectory();
+        try {
+            return archiveLocked(before);
+        } finally {
+            lock.close();
+        }
+    }
+
+    // Called holding the directory lock
+    private int archiveLocked(YearMonth before) throws IOException {
+        load();
+        if (!ledgerFile.isFile()) {
+            return 0;
+        }
+
+        // Split the ledger into closed months and the rows that stay
+        Map<YearMonth, List<Payslip>> closed = new TreeMap<>();
+        pendingLedgerFile.delete();
+        long readLength;
+        int archived = 0;
+        try (FileOutputStream pending = new FileOutputStream(pendingLedgerFile);
+             OutputStream out = new BufferedOutputStream(pending, 1 << 16)) {
+            boolean[] header = {true};
+            readLength = forEachLine(ledgerFile, ledgerFile.length(), line -> {
+                Payslip payslip = header[0] ? null : parseRow(line);
+                header[0] = false;
+                if (payslip != null && YearMonth.from(payslip.getPayDate()).isBefore(before)) {
+                    closed.computeIfAbsent(YearMonth.from(payslip.getPayDate()), month -> new ArrayList<>()).add(payslip);
+                } else {
+                    out.write(line.getBytes(StandardCharsets.UTF_8));
+                    out.write('\n');
+                }
+            });
+            for (List<Payslip> rows : closed.values()) {
+                archived += rows.size();
+            }
+            if (archived == 0) {
+                return 0;
+            }
+            out.flush();
+            readLength = copyTail(ledgerFile, readLength, pending); // Rows appended while this ran stay too
+            pending.getFD().sync();
+        } finally {
+            if (closed.isEmpty()) {
+                pendingLedgerFile.delete();
+            }
+        }
+
+        // Write the new partition generations next to the current ones
+        int newGeneration = generation + 1;
+        Map<YearMonth, String> manifest = new TreeMap<>();
+        for (Map.Entry<YearMonth, Partition> partition : partitions.entrySet()) {
+            manifest.put(partition.getKey(), partition.getValue().file.getName());
+        }
+        for (Map.Entry<YearMonth, List<Payslip>> month : closed.entrySet()) {
+            List<Payslip> rows = new ArrayList<>();
+            Partition existing = partitions.get(month.getKey());
+            if (existing != null) {
+                existing.readAll(rows);
+            }
+            rows.addAll(month.getValue());
+            File file = new File(directory, month.getKey() + ".g" + newGeneration + PARTITION_SUFFIX);
+            writePartition(file, month.getKey(), rows);
+            manifest.put(month.getKey(), file.getName());
+        }
+
+        // Commit: the manifest names the new partitions and the rewritten ledger, then the ledger moves in
+        writeManifest(newGeneration, manifest, true);
+        try (FileOutputStream pending = new FileOutputStream(pendingLedgerFile, true)) {
+            copyTail(ledgerFile, readLength, pending);
+            pending.getFD().sync();
+        }
+        finishPendingLedger();
+        writeManifest(newGeneration, manifest, false);
+        deleteUnreferenced(manifest);
+        manifestModified = -1; // Reload the partitions on next use
+        return archived;
+    }
+
+    // Loads the manifest and partition metadata if they changed, finishing an interrupted archive first
+    private void refresh() throws IOException {
+        if (isLoaded()) {
+            return;
+        }
+        FileChannel lock = lockDirectory(); // No archive run is in progress while this holds it
+        try {
+            load();
+        } finally {
+            lock.close();
+        }
+    }
+
+    private boolean isLoaded() {
+        return partitions != null && manifestFile.lastModified() == manifestModified;
+    }
+
+    // Called holding the directory lock
+    private void load() throws IOException {
+        if (isLoaded()) {
+            return;
+        }
+        TreeMap<YearMonth, Partition> loaded = new TreeMap<>();
+        generation = 0;
+        if (manifestFile.isFile()) {
+            long modified = manifestFile.lastModified();
+            Map<YearMonth, String> manifest = new TreeMap<>();
+            boolean pendingLedger = false;
+            try (BufferedReader reader = new BufferedReader(new FileReader(manifestFile, StandardCharsets.UTF_8))) {
+                String line = reader.readLine();
+                if (!MANIFEST_HEADER.equals(line)) {
+                    throw new IOException(manifestFile.getPath() + " is not a version 1 payslip archive manifest.");
+                }
+                while ((line = reader.readLine()) != null) {
+                    String[] fields = line.split(" ");
+                    if (fields[0].equals("generation")) {
+                        generation = Integer.parseInt(fields[1]);
+                    } else if (fields[0].equals("pending-ledger")) {
+                        pendingLedger = true;
+                    } else {
+                        manifest.put(YearMonth.parse(fields[0]), fields[1]);
+                    }
+                }
+            }
+            if (pendingLedger) {
+                finishPendingLedger();
+                writeManifest(generation, manifest, false);
+                modified = manifestFile.lastModified();
+            }
+            deleteUnreferenced(manifest);
+            for (Map.Entry<YearMonth, String> month : manifest.entrySet()) {
+                loaded.put(month.getKey(), Partition.open(new File(directory, month.getValue())));
+            }
+            manifestModified = modified;
+        } else {
+            manifestModified = manifestFile.lastModified();
+        }
+        partitions = loaded;
+    }
+
+    // Locks the archive directory against other processes until the returned channel is closed, waiting for
+    // one that holds it
+    private FileChannel lockDirectory() throws IOException {
+        directory.mkdirs();
+        FileChannel channel = FileChannel.open(lockFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            channel.lock();
+            return channel;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    // Moves the rewritten ledger into place, if it has not been already
+    private void finishPendingLedger() throws IOException {
+        if (pendingLedgerFile.exists()) {
+            Files.move(pendingLedgerFile.toPath(), ledgerFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            syncDirectory(ledgerFile.getAbsoluteFile().getParentFile());
+        }
+    }
+
+    private void writeManifest(int newGeneration, Map<YearMonth, String> manifest, boolean pendingLedger)
+            throws IOException {
+        StringBuilder text = new StringBuilder(MANIFEST_HEADER).append('\n');
+        text.append("generation ").append(newGeneration).append('\n');
+        for (Map.Entry<YearMonth, String> month : manifest.entrySet()) {
+            text.append(month.getKey()).append(' ').append(month.getValue()).append('\n');
+        }
+        if (pendingLedger) {
+            text.append("pending-ledger ").append(pendingLedgerFile.getName()).append('\n');
+        }
+        directory.mkdirs();
+        File tempFile = new File(directory, MANIFEST_FILE + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tempFile)) {
+            out.write(text.toString().getBytes(StandardCharsets.UTF_8));
+            out.getFD().sync();
+        }
+        Files.move(tempFile.toPath(), manifestFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory(directory);
+        generation = newGeneration;
+    }
+
+    // Partition files left behind by an earlier generation or an archive that never committed
+    private void deleteUnreferenced(Map<YearMonth, String> manifest) {
+        Set<String> referenced = new HashSet<>(manifest.values());
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(PARTITION_SUFFIX));
+        if (files != null) {
+            for (File file : files) {
+                if (!referenced.contains(file.getName())) {
+                    file.delete();
+                }
+            }
+        }
+    }
+
+    // Writes a partition from a month's payslips, given in ledger order
+    private static void writePartition(File file, YearMonth month, List<Payslip> payslips) throws IOException {
+        List<Payslip> rows = new ArrayList<>(payslips);
+        rows.sort(Comparator.comparingInt(Payslip::getEmployeeId)); // Stable: ledger order within an employee
+
+        Map<String, Integer> dictionary = new LinkedHashMap<>();
+        for (Payslip payslip : rows) {
+            dictionary.putIfAbsent(payslip.getEmployeeName(), dictionary.size());
+        }
+
+        // Compress the blocks first; their offsets follow the header and metadata
+        List<byte[]> blocks = new ArrayList<>();
+        ByteBuffer blockIndex = ByteBuffer.allocate(((rows.size() + BLOCK_ROWS - 1) / BLOCK_ROWS) * BLOCK_INDEX_ENTRY_SIZE);
+        Deflater deflater = new Deflater();
+        ByteArrayOutputStream columns = new ByteArrayOutputStream();
+        for (int start = 0; start < rows.size(); start += BLOCK_ROWS) {
+            List<Payslip> block = rows.subList(start, Math.min(start + BLOCK_ROWS, rows.size()));
+            columns.reset();
+            encodeBlock(block, month, dictionary, columns);
+            byte[] compressed = deflate(deflater, columns.toByteArray());
+            blocks.add(compressed);
+            CRC32 crc = new CRC32();
+            crc.update(compressed);
+            blockIndex.putInt(block.get(0).getEmployeeId()).putInt(block.get(block.size() - 1).getEmployeeId())
+                    .putInt(block.size()).putLong(0).putInt(compressed.length).putInt((int) crc.getValue());
+        }
+        deflater.end();
+
+        ByteArrayOutputStream names = new ByteArrayOutputStream();
+        writeInt(names, dictionary.size());
+        for (String name : dictionary.keySet()) {
+            byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+            names.write(bytes.length >>> 8);
+            names.write(bytes.length);
+            names.write(bytes, 0, bytes.length);
+        }
+        int metadataLength = names.size() + blockIndex.capacity();
+        long offset = HEADER_SIZE + metadataLength;
+        for (int i = 0; i < blocks.size(); i++) {
+            blockIndex.putLong(i * BLOCK_INDEX_ENTRY_SIZE + Integer.BYTES * 3, offset);
+            offset += blocks.get(i).length;
+        }
+
+        CRC32 metadataCrc = new CRC32();
+        metadataCrc.update(names.toByteArray());
+        metadataCrc.update(blockIndex.array());
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).putInt(month.getYear()).putInt(month.getMonthValue())
+                .putInt(rows.size()).putInt(blocks.size()).putInt(metadataLength).putInt((int) metadataCrc.getValue());
+
+        file.getParentFile().mkdirs();
+        try (FileOutputStream out = new FileOutputStream(file);
+             OutputStream buffered = new BufferedOutputStream(out, 1 << 16)) {
+            buffered.write(header.array());
+            names.writeTo(buffered);
+            buffered.write(blockIndex.array());
+            for (byte[] block : blocks) {
+                buffered.write(block);
+            }
+            buffered.flush();
+            out.getFD().sync();
+        }
+    }
+
+    private static void encodeBlock(List<Payslip> block, YearMonth month, Map<String, Integer> dictionary,
+                                    ByteArrayOutputStream out) {
+        int previousId = block.get(0).getEmployeeId();
+        for (Payslip payslip : block) {
+            writeVarLong(out, payslip.getEmployeeId() - previousId);
+            previousId = payslip.getEmployeeId();
+        }
+        long previousDay = month.atDay(1).toEpochDay();
+        for (Payslip payslip : block) {
+            long day = payslip.getPayDate().toEpochDay();
+            writeVarLong(out, zigzag(day - previousDay));
+            previousDay = day;
+        }
+        for (Payslip payslip : block) {
+            writeVarLong(out, dictionary.get(payslip.getEmployeeName()));
+        }
+        for (Payslip payslip : block) {
+            writeVarLong(out, zigzag(payslip.getGrossPay()));
+        }
+        for (Payslip payslip : block) {
+            writeVarLong(out, zigzag(payslip.getNetPay()));
+        }
+    }
+
+    private static byte[] deflate(Deflater deflater, byte[] input) {
+        deflater.reset();
+        deflater.setInput(input);
+        deflater.finish();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(input.length / 2 + 64);
+        byte[] buffer = new byte[8192];
+        while (!deflater.finished()) {
+            out.write(buffer, 0, deflater.deflate(buffer));
+        }
+        return out.toByteArray();
+    }
+
+    // One month's partition: the dictionary and block index in memory, blocks read from disk on demand
+    private static class Partition {
+        final File file;
+        final YearMonth month;
+        final String[] names;
+        final int[] firstIds;
+        final int[] lastIds;
+        final int[] rowCounts;
+        final long[] offsets;
+        final int[] lengths;
+        final int[] crcs;
+
+        private Partition(File file, YearMonth month, String[] names, int blockCount) {
+            this.file = file;
+            this.month = month;
+            this.names = names;
+            this.firstIds = new int[blockCount];
+            this.lastIds = new int[blockCount];
+            this.rowCounts = new int[blockCount];
+            this.offsets = new long[blockCount];
+            this.lengths = new int[blockCount];
+            this.crcs = new int[blockCount];
+        }
+
+        static Partition open(File file) throws IOException {
+            try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+                byte[] headerBytes = new byte[HEADER_SIZE];
+                in.readFully(headerBytes);
+                ByteBuffer header = ByteBuffer.wrap(headerBytes);
+                if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                    throw new IOException(file.getName() + " is not a version " + VERSION + " payslip partition.");
+                }
+                YearMonth month = YearMonth.of(header.getInt(), header.getInt());
+                header.getInt(); // Row count
+                int blockCount = header.getInt();
+                byte[] metadata = new byte[header.getInt()];
+                int expectedCrc = header.getInt();
+                in.readFully(metadata);
+                CRC32 crc = new CRC32();
+                crc.update(metadata);
+                if ((int) crc.getValue() != expectedCrc) {
+                    throw new IOException(file.getName() + " is corrupt.");
+                }
+
+                ByteBuffer buffer = ByteBuffer.wrap(metadata);
+                String[] names = new String[buffer.getInt()];
+                for (int i = 0; i < names.length; i++) {
+                    int length = Short.toUnsignedInt(buffer.getShort());
+                    names[i] = new String(metadata, buffer.position(), length, StandardCharsets.UTF_8);
+                    buffer.position(buffer.position() + length);
+                }
+                Partition partition = new Partition(file, month, names, blockCount);
+                for (int i = 0; i < blockCount; i++) {
+                    partition.firstIds[i] = buffer.getInt();
+                    partition.lastIds[i] = buffer.getInt();
+                    partition.rowCounts[i] = buffer.getInt();
+                    partition.offsets[i] = buffer.getLong();
+                    partition.lengths[i] = buffer.getInt();
+                    partition.crcs[i] = buffer.getInt();
+                }
+                return partition;
+            }
+        }
+
+        // Adds the employee's payslips in this month, in ledger order
+        void read(int employeeId, List<Payslip> out) throws IOException {
+            // First block whose last ID is not below the employee; blocks are in ID order
+            int low = 0;
+            int high = lastIds.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (lastIds[middle] < employeeId) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            if (low == lastIds.length || firstIds[low] > employeeId) {
+                return;
+            }
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                for (int block = low; block < lastIds.length && firstIds[block] <= employeeId; block++) {
+                    for (Payslip payslip : readBlock(channel, block)) {
+                        if (payslip.getEmployeeId() == employeeId) {
+                            out.add(payslip);
+                        }
+                    }
+                }
+            }
+        }
+
+        void readAll(List<Payslip> out) throws IOException {
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                for (int block = 0; block < offsets.length; block++) {
+                    out.addAll(readBlock(channel, block));
+                }
+            }
+        }
+
+        private List<Payslip> readBlock(FileChannel channel, int block) throws IOException {
+            ByteBuffer compressed = ByteBuffer.allocate(lengths[block]);
+            long position = offsets[block];
+            while (compressed.hasRemaining()) {
+                int read = channel.read(compressed, position + compressed.position());
+                if (read < 0) {
+                    throw new IOException(file.getName() + " is truncated.");
+                }
+            }
+            CRC32 crc = new CRC32();
+            crc.update(compressed.array());
+            if ((int) crc.getValue() != crcs[block]) {
+                throw new IOException(file.getName() + " is corrupt.");
+            }
+            ByteBuffer columns = ByteBuffer.wrap(inflate(compressed.array()));
+
+            int rows = rowCounts[block];
+            int[] ids = new int[rows];
+            int id = firstIds[block];
+            for (int i = 0; i < rows; i++) {
+                id += (int) readVarLong(columns);
+                ids[i] = id;
+            }
+            long[] days = new long[rows];
+            long day = month.atDay(1).toEpochDay();
+            for (int i = 0; i < rows; i++) {
+                day += unzigzag(readVarLong(columns));
+                days[i] = day;
+            }
+            int[] nameIndexes = new int[rows];
+            for (int i = 0; i < rows; i++) {
+                nameIndexes[i] = (int) readVarLong(columns);
+            }
+            long[] gross = new long[rows];
+            for (int i = 0; i < rows; i++) {
+                gross[i] = unzigzag(readVarLong(columns));
+            }
+
+            List<Payslip> payslips = new ArrayList<>(rows);
+            for (int i = 0; i < rows; i++) {
+                long net = unzigzag(readVarLong(columns));
+                payslips.add(new Payslip(ids[i], names[nameIndexes[i]], LocalDate.ofEpochDay(days[i]), gross[i], net));
+            }
+            return payslips;
+        }
+
+        private byte[] inflate(byte[] compressed) throws IOException {
+            Inflater inflater = new Inflater();
+            try {
+                inflater.setInput(compressed);
+                ByteArrayOutputStream out = new ByteArrayOutputStream(compressed.length * 4);
+                byte[] buffer = new byte[8192];
+                while (!inflater.finished()) {
+                    int inflated = inflater.inflate(buffer);
+                    if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                        throw new IOException(file.getName() + " is truncated.");
+                    }
+                    out.write(buffer, 0, inflated);
+                }
+                return out.toByteArray();
+            } catch (DataFormatException e) {
+                throw new IOException(file.getName() + " is corrupt: " + e.getMessage(), e);
+            } finally {
+                inflater.end();
+            }
+        }
+    }
+
+    // A ledger row as a Payslip, or null if it is not one
+    private static Payslip parseRow(String line) {
+        String[] fields = line.split(",");
+        if (fields.length != 5) {
+            return null;
+        }
+        try {
+            return new Payslip(Integer.parseInt(fields[0]), fields[1], LocalDate.parse(fields[2]),
+                    Money.parse(fields[3]), Money.parse(fields[4]));
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private interface LineVisitor {
+        void visit(String line) throws IOException;
+    }
+
+    // Visits each complete line in the first length bytes of the file. Returns the offset just past the
+    // last complete line; a line still being appended is left for copyTail.
+    private static long forEachLine(File file, long length, LineVisitor visitor) throws IOException {
+        long lineEnd = 0;
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file), 1 << 16)) {
+            ByteArrayOutputStream line = new ByteArrayOutputStream(128);
+            long position = 0;
+            int b;
+            while (position < length && (b = in.read()) != -1) {
+                position++;
+                if (b == '\n') {
+                    visitor.visit(line.toString(StandardCharsets.UTF_8));
+                    line.reset();
+                    lineEnd = position;
+                } else {
+                    line.write(b);
+                }
+            }
+        }
+        return lineEnd;
+    }
+
+    // Appends the bytes of the file from the given offset to its current end; returns the new offset
+    private static long copyTail(File file, long from, FileOutputStream out) throws IOException {
+        long end = file.length();
+        if (end > from) {
+            try (FileChannel in = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                long position = from;
+                while (position < end) {
+                    position += in.transferTo(position, end - position, out.getChannel());
+                }
+            }
+        }
+        return Math.max(end, from);
+    }
+
+    private static void syncDirectory(File directory) {
+        try (FileChannel channel = FileChannel.open(directory.toPath(), StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Not supported on every platform; the file contents themselves are already synced
+        }
+    }
+
+    private static void writeInt(ByteArrayOutputStream out, int value) {
+        out.write(value >>> 24);
+        out.write(value >>> 16);
+        out.write(value >>> 8);
+        out.write(value);
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value;
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
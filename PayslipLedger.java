@@ -0,0 +1,331 @@
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/*
+Payslips.csv treated as an append-only ledger with a sidecar index (Payslips.csv.idx) from employee ID
+to the byte offsets of that employee's rows, so reading one employee's history seeks straight to their
+k rows instead of scanning the whole file.
+
+Writers keep appending to Payslips.csv as before. Before answering a lookup the ledger indexes any rows
+appended since the index was last brought up to date, and appends the new entries to the sidecar. The
+sidecar is rebuilt from scratch if it is missing or unreadable, or if the ledger has been truncated or
+replaced since it was indexed.
+
+Sidecar layout:
+  header (32 bytes): magic, version, entry count, indexed ledger length, fingerprint of the ledger start
+  entries (12 bytes each): employee ID, row offset
+ */
+public class PayslipLedger {
+
+    private static final String LEDGER_FILE = "Payslips.csv";
+    private static final String INDEX_SUFFIX = ".idx";
+
+    private static final int MAGIC = 0x50534C58; // "PSLX"
+    private static final int VERSION = 2; // 2: signed IDs, overflowing IDs no longer indexed
+    private static final int HEADER_SIZE = 32;
+    private static final int ENTRY_SIZE = Integer.BYTES + Long.BYTES;
+    private static final int FINGERPRINT_BYTES = 4096;
+    private static final int MAX_ID_CHARS = 32; // Longer than any int, with room for surrounding spaces
+
+    private static PayslipLedger defaultLedger;
+
+    private final File ledgerFile;
+    private final File indexFile;
+
+    private IntHashMap<OffsetList> offsetsByEmployee = new IntHashMap<>();
+    private boolean loaded;
+    private int entryCount;
+    private long indexedLength;
+    private long fingerprint;
+
+    public PayslipLedger(File ledgerFile) {
+        this.ledgerFile = ledgerFile;
+        this.indexFile = new File(ledgerFile.getPath() + INDEX_SUFFIX);
+    }
+
+    public static synchronized PayslipLedger getDefault() {
+        if (defaultLedger == null) {
+            defaultLedger = new PayslipLedger(new File(LEDGER_FILE));
+        }
+        return defaultLedger;
+    }
+
+    // All payslips for the employee, in the order they were written to the ledger
+    public synchronized List<Payslip> readPayslips(int employeeId) throws IOException {
+        catchUp();
+
+        List<Payslip> payslips = new ArrayList<>();
+        if (!readIndexedRows(employeeId, payslips)) {
+            // The fingerprint only covers the start of the ledger, so an edit further on can leave offsets
+            // pointing at other rows: rebuild the index rather than return someone else's payslips
+            System.err.println("Rebuilding out-of-date payslip index " + indexFile.getName() + ".");
+            resetIndex();
+            catchUp();
+            payslips.clear();
+            readIndexedRows(employeeId, payslips);
+        }
+        return payslips;
+    }
+
+    // Adds the employee's rows at their indexed offsets; false if an offset led to another employee's row,
+    // which is left out
+    private boolean readIndexedRows(int employeeId, List<Payslip> payslips) throws IOException {
+        OffsetList offsets = offsetsByEmployee.get(employeeId);
+        if (offsets == null) {
+            return true;
+        }
+
+        boolean current = true;
+        try (RandomAccessFile ledger = new RandomAccessFile(ledgerFile, "r")) {
+            byte[] buffer = new byte[256];
+            for (int i = 0; i < offsets.size; i++) {
+                String line = readLine(ledger, offsets.values[i], buffer);
+                String[] fields = line.split(",");
+                if (!isEmployeeRow(fields[0], employeeId)) {
+                    current = false;
+                    continue;
+                }
+                if (fields.length != 5) {
+                    System.out.println("Skipping invalid line: " + line);
+                    continue; // Skip malformed rows
+                }
+
+                try {
+                    payslips.add(new Payslip(
+                            employeeId,
+                            fields[1],                          // employeeName
+                            LocalDate.parse(fields[2]),         // payDate
+                            Money.parse(fields[3]),             // grossPay, in cents
+                            Money.parse(fields[4])));           // netPay, in cents
+                } catch (RuntimeException e) {
+                    System.out.println("Skipping invalid line: " + line);
+                }
+            }
+        }
+        return current;
+    }
+
+    private static boolean isEmployeeRow(String idField, int employeeId) {
+        try {
+            return Integer.parseInt(idField.trim()) == employeeId;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    // Number of payslip rows currently indexed
+    public synchronized int size() throws IOException {
+        catchUp();
+        return entryCount;
+    }
+
+    // Brings the in-memory index and the sidecar up to date with the ledger
+    private void catchUp() throws IOException {
+        if (!loaded) {
+            loadIndex();
+            loaded = true;
+        }
+
+        long ledgerLength = ledgerFile.length();
+        if (ledgerLength == indexedLength) {
+            return;
+        }
+        if (ledgerLength < indexedLength || fingerprint(ledgerFile, indexedLength) != fingerprint) {
+            // The ledger was truncated or replaced: start again from the beginning
+            resetIndex();
+        }
+        indexTail(ledgerLength);
+    }
+
+    // Reads the sidecar into memory, falling back to an empty index if it is missing or invalid
+    private void loadIndex() throws IOException {
+        resetInMemory();
+        if (!indexFile.exists()) {
+            resetIndex();
+            return;
+        }
+
+        try (RandomAccessFile index = new RandomAccessFile(indexFile, "r")) {
+            if (index.length() < HEADER_SIZE || index.readInt() != MAGIC || index.readInt() != VERSION) {
+                System.err.println("Rebuilding unreadable payslip index " + indexFile.getName() + ".");
+                resetIndex();
+                return;
+            }
+            int count = index.readInt();
+            long length = index.readLong();
+            long storedFingerprint = index.readLong();
+            if (index.length() < HEADER_SIZE + (long) count * ENTRY_SIZE) {
+                System.err.println("Rebuilding truncated payslip index " + indexFile.getName() + ".");
+                resetIndex();
+                return;
+            }
+
+            byte[] entries = new byte[count * ENTRY_SIZE];
+            index.seek(HEADER_SIZE);
+            index.readFully(entries);
+            ByteBuffer buffer = ByteBuffer.wrap(entries);
+            for (int i = 0; i < count; i++) {
+                addOffset(buffer.getInt(), buffer.getLong());
+            }
+            entryCount = count;
+            indexedLength = length;
+            fingerprint = storedFingerprint;
+        }
+    }
+
+    // Indexes complete rows between the indexed length and the current end of the ledger
+    private void indexTail(long ledgerLength) throws IOException {
+        ByteBuffer newEntries = ByteBuffer.allocate(4096 * ENTRY_SIZE);
+        int newCount = 0;
+        long lineStart = indexedLength;
+
+        try (RandomAccessFile index = new RandomAccessFile(indexFile, "rw");
+             InputStream in = new BufferedInputStream(new FileInputStream(ledgerFile), 1 << 16)) {
+            index.seek(HEADER_SIZE + (long) entryCount * ENTRY_SIZE);
+            in.skipNBytes(indexedLength);
+
+            long position = indexedLength;
+            StringBuilder idField = new StringBuilder(MAX_ID_CHARS);
+            int employeeId = 0;
+            boolean parsingId = true;
+            boolean validId = false;
+            int b;
+            while (position < ledgerLength && (b = in.read()) != -1) {
+                position++;
+                if (b == '\n') {
+                    if (validId) {
+                        if (!newEntries.hasRemaining()) {
+                            index.write(newEntries.array(), 0, newEntries.position());
+                            newEntries.clear();
+                        }
+                        newEntries.putInt(employeeId).putLong(lineStart);
+                        addOffset(employeeId, lineStart);
+                        newCount++;
+                    }
+                    lineStart = position;
+                    idField.setLength(0);
+                    parsingId = true;
+                    validId = false;
+                } else if (parsingId) {
+                    if (b == ',') {
+                        // Parsed as CSVHandler parses IDs; the header row and malformed rows fail here
+                        try {
+                            employeeId = Integer.parseInt(idField.toString().trim());
+                            validId = true;
+                        } catch (NumberFormatException e) {
+                            validId = false;
+                        }
+                        parsingId = false;
+                    } else if (idField.length() < MAX_ID_CHARS) {
+                        idField.append((char) b);
+                    } else {
+                        parsingId = false; // Too long to be an int
+                    }
+                }
+            }
+            index.write(newEntries.array(), 0, newEntries.position());
+
+            // Only complete lines are indexed; a partially written final row is picked up next time
+            entryCount += newCount;
+            indexedLength = lineStart;
+            fingerprint = fingerprint(ledgerFile, indexedLength);
+            writeHeader(index);
+        }
+    }
+
+    private void resetIndex() throws IOException {
+        resetInMemory();
+        try (RandomAccessFile index = new RandomAccessFile(indexFile, "rw")) {
+            index.setLength(HEADER_SIZE);
+            writeHeader(index);
+        }
+    }
+
+    private void resetInMemory() {
+        offsetsByEmployee = new IntHashMap<>();
+        entryCount = 0;
+        indexedLength = 0;
+        fingerprint = 0;
+    }
+
+    private void writeHeader(RandomAccessFile index) throws IOException {
+        index.seek(0);
+        index.writeInt(MAGIC);
+        index.writeInt(VERSION);
+        index.writeInt(entryCount);
+        index.writeLong(indexedLength);
+        index.writeLong(fingerprint);
+    }
+
+    private void addOffset(int employeeId, long offset) {
+        OffsetList offsets = offsetsByEmployee.get(employeeId);
+        if (offsets == null) {
+            offsets = new OffsetList();
+            offsetsByEmployee.put(employeeId, offsets);
+        }
+        offsets.add(offset);
+    }
+
+    // CRC of the first few KB of the ledger (up to limit), used to notice the file being replaced
+    private static long fingerprint(File ledgerFile, long limit) throws IOException {
+        int length = (int) Math.min(limit, FINGERPRINT_BYTES);
+        if (length == 0) {
+            return 0;
+        }
+        byte[] start = new byte[length];
+        try (RandomAccessFile ledger = new RandomAccessFile(ledgerFile, "r")) {
+            if (ledger.length() < length) {
+                return -1;
+            }
+            ledger.readFully(start);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(start);
+        return crc.getValue();
+    }
+
+    private static String readLine(RandomAccessFile ledger, long offset, byte[] buffer) throws IOException {
+        ledger.seek(offset);
+        int length = 0;
+        while (true) {
+            if (length == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            int read = ledger.read(buffer, length, buffer.length - length);
+            if (read == -1) {
+                break;
+            }
+            for (int i = length; i < length + read; i++) {
+                if (buffer[i] == '\n') {
+                    return new String(buffer, 0, i, StandardCharsets.UTF_8);
+                }
+            }
+            length += read;
+        }
+        return new String(buffer, 0, length, StandardCharsets.UTF_8);
+    }
+
+    // Growable list of row offsets for one employee
+    private static class OffsetList {
+        private long[] values = new long[4];
+        private int size;
+
+        void add(long offset) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = offset;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+// Batched payslip sink for payroll runs.
+// Payslips.csv is opened once, rows are serialized into a reused buffer and written out in large chunks,
+// and the file is synced a single time when the writer is closed. Rows, bytes and throughput are kept
+// for the caller to report (getThroughput), not printed.
+public class PayslipWriter implements Closeable {
+
+    private static final String PAYSLIP_FILE = "Payslips.csv";
+    private static final String HEADER = "employeeId,employeeName,payDate,grossPay,netPay\n";
+    private static final int BUFFER_SIZE = 1 << 20; // 1 MiB
+
+    private final File file;
+    private final FileOutputStream out;
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final StringBuilder row = new StringBuilder(128);
+
+    private final long startNanos = System.nanoTime();
+    private long closeNanos; // 0 until closed
+    private long rowsWritten;
+    private long bytesWritten;
+
+    public PayslipWriter() throws IOException {
+        this(new File(PAYSLIP_FILE));
+    }
+
+    public PayslipWriter(File file) throws IOException {
+        boolean writeHeader = !file.exists() || file.length() == 0;
+        this.file = file;
+        this.out = new FileOutputStream(file, true);
+        this.channel = out.getChannel();
+        if (writeHeader) {
+            put(HEADER);
+        }
+    }
+
+    // Payslips.csv layout: employeeId,employeeName,payDate,grossPay,netPay
+    public void write(Payslip payslip) throws IOException {
+        row.setLength(0);
+        row.append(payslip.getEmployeeId()).append(',')
+                .append(payslip.getEmployeeName()).append(',')
+                .append(payslip.getPayDate()).append(',');
+        Money.append(row, payslip.getGrossPay());
+        row.append(',');
+        Money.append(row, payslip.getNetPay());
+        row.append('\n');
+
+        put(row);
+        rowsWritten++;
+    }
+
+    public long getRowsWritten() {
+        return rowsWritten;
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    // From opening the writer until it was closed, or until now while it is open
+    public long getElapsedNanos() {
+        return (closeNanos == 0 ? System.nanoTime() : closeNanos) - startNanos;
+    }
+
+    // Rows, bytes and throughput so far, e.g. to print once the writer is closed
+    public String getThroughput() {
+        double seconds = Math.max(getElapsedNanos(), 1) / 1_000_000_000.0;
+        return String.format("Wrote %d payslips (%d bytes) to %s in %.3f s: %.0f rows/s, %.0f bytes/s",
+                rowsWritten, bytesWritten, file.getName(), seconds, rowsWritten / seconds, bytesWritten / seconds);
+    }
+
+    // Flushes the buffer and syncs the file once
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+            channel.force(true);
+        } finally {
+            out.close();
+            closeNanos = System.nanoTime();
+        }
+    }
+
+    private void put(CharSequence text) throws IOException {
+        int length = text.length();
+        if (buffer.remaining() < length * 3) { // worst case UTF-8 expansion
+            flush();
+        }
+
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c >= 0x80) {
+                // Non-ASCII text: let the JDK encoder handle it
+                buffer.position(buffer.position() - i);
+                buffer.put(text.toString().getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+            buffer.put((byte) c);
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            bytesWritten += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
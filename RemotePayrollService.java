@@ -0,0 +1,155 @@
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// PayrollService that sends each operation to a PayrollServer (see there for the requests).
+// Each request carries the server's access token, read from Payroll.token in the working directory, and
+// read again once if the server refuses it (it changes when the server restarts).
+// A 400 response comes back as IllegalArgumentException with the server's message, anything else that
+// is not 200 as IOException.
+public class RemotePayrollService implements PayrollService {
+
+    private final URI baseUri;
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private String token;
+
+    public RemotePayrollService(URI baseUri) {
+        // Ends in "/" so that request paths resolve under any path the server is mounted at
+        String base = baseUri.toString();
+        this.baseUri = URI.create(base.endsWith("/") ? base : base + "/");
+    }
+
+    @Override
+    public String describeEmployee(int employeeId) throws IOException {
+        return get("/employees/" + employeeId);
+    }
+
+    @Override
+    public boolean isPartTime(int employeeId) throws IOException {
+        return Boolean.parseBoolean(get("/employees/" + employeeId + "/part-time"));
+    }
+
+    @Override
+    public boolean isPaymentRequestSubmitted(int employeeId) throws IOException {
+        return Boolean.parseBoolean(get("/employees/" + employeeId + "/payment-request"));
+    }
+
+    @Override
+    public List<String> listPayslips(int employeeId) throws IOException {
+        return lines(get("/employees/" + employeeId + "/payslips"));
+    }
+
+    @Override
+    public String submitPaymentRequest(int employeeId, int hoursWorked) throws IOException {
+        return post("/employees/" + employeeId + "/payment-request", form("hours", hoursWorked));
+    }
+
+    @Override
+    public int createFullTimeEmployee(String name, String position, int scalePoint, double healthInsuranceRate)
+            throws IOException {
+        return Integer.parseInt(post("/employees", form("name", name, "type", Employee.EmployeeType.FULL_TIME,
+                "position", position, "scalePoint", scalePoint, "healthInsuranceRate", healthInsuranceRate)));
+    }
+
+    @Override
+    public int createPartTimeEmployee(String name, String position, double hourlyRate) throws IOException {
+        return Integer.parseInt(post("/employees", form("name", name, "type", Employee.EmployeeType.PART_TIME,
+                "position", position, "hourlyRate", hourlyRate)));
+    }
+
+    @Override
+    public List<String> importEmployees(String stagingFilePath) throws IOException {
+        return lines(post("/imports", form("path", stagingFilePath)));
+    }
+
+    @Override
+    public String promoteEmployee(int employeeId, String position, int scalePoint) throws IOException {
+        return post("/employees/" + employeeId + "/promotion", form("position", position, "scalePoint", scalePoint));
+    }
+
+    @Override
+    public List<String> generateMonthlyPayslips() throws IOException {
+        return lines(post("/payroll-runs", ""));
+    }
+
+    // The server keeps running; nothing to release here
+    @Override
+    public void close() {
+    }
+
+    private String get(String path) throws IOException {
+        return send(HttpRequest.newBuilder(uri(path)).GET());
+    }
+
+    private String post(String path, String form) throws IOException {
+        return send(HttpRequest.newBuilder(uri(path))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(form, StandardCharsets.UTF_8)));
+    }
+
+    // Paths are written from the server root ("/employees"), but resolved relative to the base URI
+    private URI uri(String path) {
+        return baseUri.resolve(path.startsWith("/") ? path.substring(1) : path);
+    }
+
+    private String send(HttpRequest.Builder request) throws IOException {
+        HttpResponse<String> response = send(request, false);
+        if (response.statusCode() == 403) {
+            response = send(request, true); // The server may have restarted with a new token
+        }
+        if (response.statusCode() == 400) {
+            throw new IllegalArgumentException(response.body());
+        }
+        if (response.statusCode() != 200) {
+            throw new IOException("Payroll service error " + response.statusCode() + ": " + response.body());
+        }
+        return response.body();
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request, boolean reloadToken) throws IOException {
+        synchronized (this) {
+            if (token == null || reloadToken) {
+                token = PayrollServer.readToken();
+            }
+            request.setHeader(PayrollServer.TOKEN_HEADER, token);
+        }
+        try {
+            return client.send(request.build(), HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for the payroll service.");
+        }
+    }
+
+    // name, value, name, value, ... as a form body
+    private static String form(Object... namesAndValues) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        for (int i = 0; i < namesAndValues.length; i += 2) {
+            fields.put(namesAndValues[i].toString(), String.valueOf(namesAndValues[i + 1]));
+        }
+        StringBuilder form = new StringBuilder();
+        for (Map.Entry<String, String> field : fields.entrySet()) {
+            if (form.length() > 0) {
+                form.append('&');
+            }
+            form.append(URLEncoder.encode(field.getKey(), StandardCharsets.UTF_8)).append('=')
+                    .append(URLEncoder.encode(field.getValue(), StandardCharsets.UTF_8));
+        }
+        return form.toString();
+    }
+
+    private static List<String> lines(String body) {
+        return body.isEmpty() ? new ArrayList<>() : new ArrayList<>(Arrays.asList(body.split("\n")));
+    }
+}
@@ -0,0 +1,99 @@
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/*
+Replaces Employees.csv and PartTimeEmployees.csv together, so a crash never leaves a new copy of one
+beside an old copy of the other.
+
+The new files are written and synced beside the old ones first. Roster.export then records the moves
+to make before any is made, and is deleted once they are all done. If a crash cuts the moves short,
+recover() makes the rest, and the CSV readers and EmployeeStore.getDefault call it before reading the
+roster. When there is nothing to finish that is a single file check.
+ */
+public class RosterExport {
+
+    private static final String EXPORT_FILE = "Roster.export";
+
+    // Told by replace() that the new roster files will be in place even if a crash interrupts the moves
+    public interface Commit {
+        void committed(long employeesModified, long partTimeModified) throws IOException;
+    }
+
+    private RosterExport() {
+    }
+
+    // Moves the sources over the roster files as one step. onCommit is called once the record of the moves
+    // is durable, with the modification times the roster files will have, so whatever tracks them can be
+    // updated before the moves are made.
+    public static synchronized void replace(File employeesFile, File partTimeFile, File employeesSource,
+                                            File partTimeSource, Commit onCommit) throws IOException {
+        File exportFile = exportFileFor(employeesFile);
+        if (exportFile.exists()) {
+            finish(exportFile, employeesFile, partTimeFile); // An earlier export comes first
+        }
+        long employeesModified = employeesSource.lastModified(); // Kept by the moves
+        long partTimeModified = partTimeSource.lastModified();
+
+        File exportTemp = new File(exportFile.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(exportTemp);
+             BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+            writer.write(employeesSource.getName() + "\n" + employeesFile.getName() + "\n");
+            writer.write(partTimeSource.getName() + "\n" + partTimeFile.getName() + "\n");
+            writer.flush();
+            out.getFD().sync();
+        }
+        Files.move(exportTemp.toPath(), exportFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory(exportFile.getParentFile());
+
+        onCommit.committed(employeesModified, partTimeModified);
+        finish(exportFile, employeesFile, partTimeFile);
+    }
+
+    // Makes the moves of an export a crash interrupted, if there is one
+    public static synchronized void recover(File employeesFile, File partTimeFile) throws IOException {
+        File exportFile = exportFileFor(employeesFile);
+        if (exportFile.exists()) {
+            finish(exportFile, employeesFile, partTimeFile);
+        }
+    }
+
+    // Makes the recorded moves that have not been made yet, then deletes the record. Safe to repeat.
+    private static void finish(File exportFile, File employeesFile, File partTimeFile) throws IOException {
+        File directory = exportFile.getParentFile();
+        List<String> names = Files.readAllLines(exportFile.toPath(), StandardCharsets.UTF_8);
+        for (int i = 0; i + 1 < names.size(); i += 2) {
+            File source = new File(directory, names.get(i));
+            if (source.exists()) {
+                Files.move(source.toPath(), new File(directory, names.get(i + 1)).toPath(),
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+        }
+        syncDirectory(directory);
+        Files.delete(exportFile.toPath());
+        syncDirectory(directory);
+        RosterSnapshot.writeQuietly(employeesFile, partTimeFile); // Keeps cold starts off the CSV parser
+    }
+
+    private static File exportFileFor(File employeesFile) {
+        return new File(employeesFile.getAbsoluteFile().getParentFile(), EXPORT_FILE);
+    }
+
+    // Makes renames in the roster's directory durable
+    private static void syncDirectory(File directory) {
+        try (FileChannel channel = FileChannel.open(directory.toPath(), StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Not supported on every platform; the file contents themselves are already synced
+        }
+    }
+}
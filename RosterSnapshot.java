@@ -0,0 +1,410 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/*
+Binary snapshot of the roster (Employees.csv with PartTimeEmployees.csv) and the salary scales
+(ULSalaryInformation.csv), kept next to Employees.csv as Payroll.snapshot, so a cold start maps one file
+instead of splitting and parsing every CSV row.
+
+The snapshot holds exactly what the CSV loaders return for the files it was written from: the same
+employees in the same order, with amounts as they were read back from the CSV text. It is written after
+each replacement of the CSV files (see RosterExport) to a temporary file that is
+synced and then renamed into place. Each section is only used while the CSV files it came from still
+have the last-modified time, length and CRC of their first and last 4 KB recorded for them, so an edit
+that keeps the length within one tick of the file system clock is still noticed; if anything else has
+changed them, the loaders parse the CSV files as before. -Dpayroll.snapshot=false always parses the CSV
+files and stops the snapshot being rewritten.
+
+Layout (big-endian):
+  header (100 bytes): magic, version, CRC32 of each section, employee count, category count,
+                      length of each section, last-modified time, length and sample CRC of Employees.csv,
+                      PartTimeEmployees.csv and ULSalaryInformation.csv as of the snapshot
+  scales section: per category: name, point count (int), salary per point (double, -1 where undefined)
+  employees section: position count (int) and the distinct positions, then
+    per employee: type (byte), ID (int), name, position (index into the positions, int), then
+    full-time: salary (double), scale point (int), last promotion (epoch day, int), health insurance rate (double)
+    part-time: hourly rate (double), hours worked (int), payment request submitted (byte)
+Strings are an unsigned 2-byte length followed by that many bytes of UTF-8.
+ */
+public class RosterSnapshot {
+
+    private static final String SNAPSHOT_FILE = "Payroll.snapshot";
+    private static final String SALARY_FILE = "ULSalaryInformation.csv";
+
+    private static final int MAGIC = 0x50534E50; // "PSNP"
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 100;
+    private static final int SAMPLE_BYTES = 4096; // From each end of a CSV file, for its stamp
+    private static final int MAX_STRING_BYTES = 0xFFFF;
+
+    private static final boolean ENABLED = !"false".equals(System.getProperty("payroll.snapshot"));
+
+    private static final Employee.EmployeeType[] EMPLOYEE_TYPES = Employee.EmployeeType.values();
+
+    private RosterSnapshot() {
+    }
+
+    // The employees the CSV loaders would return for these files, or null if there is no current snapshot of them
+    public static List<Employee> readEmployees(File employeesFile, File partTimeFile) {
+        File snapshotFile = snapshotFileFor(employeesFile);
+        if (!ENABLED || !snapshotFile.isFile()) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(snapshotFile.toPath(), StandardOpenOption.READ)) {
+            Header header = Header.read(channel);
+            if (header == null || !header.matchesRoster(employeesFile, partTimeFile)) {
+                return null;
+            }
+            ByteBuffer section = header.employeesSection(channel);
+            if (section == null) {
+                return null;
+            }
+            return decodeEmployees(section, header.employeeCount);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Ignoring unreadable " + snapshotFile.getName() + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    // The salary scales parsed from the salary file next to the snapshot, or null if there is no current snapshot of it
+    public static Map<String, double[]> readScales(File salaryFile) {
+        File snapshotFile = new File(salaryFile.getAbsoluteFile().getParentFile(), SNAPSHOT_FILE);
+        if (!ENABLED || !snapshotFile.isFile()) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(snapshotFile.toPath(), StandardOpenOption.READ)) {
+            Header header = Header.read(channel);
+            if (header == null || !header.matchesScales(salaryFile)) {
+                return null;
+            }
+            ByteBuffer section = header.scalesSection(channel);
+            if (section == null) {
+                return null;
+            }
+            return decodeScales(section, header.categoryCount);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Ignoring unreadable " + snapshotFile.getName() + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Snapshots the roster files as they are now, with the salary file next to them. The files are parsed
+    // afresh rather than taken from memory, so the snapshot cannot disagree with the CSV text.
+    public static void write(File employeesFile, File partTimeFile) throws IOException {
+        File salaryFile = new File(employeesFile.getAbsoluteFile().getParentFile(), SALARY_FILE);
+        Stamp employeesStamp = new Stamp(employeesFile);
+        Stamp partTimeStamp = new Stamp(partTimeFile);
+        Stamp salaryStamp = new Stamp(salaryFile);
+        List<Employee> employees = CSVHandler.parseMappedCSV(employeesFile, partTimeFile);
+        Map<String, double[]> scales = salaryFile.isFile() ? SalaryScaleIndex.parse(salaryFile) : new HashMap<>();
+
+        File snapshotFile = snapshotFileFor(employeesFile);
+        File tempFile = new File(snapshotFile.getPath() + ".tmp");
+        try (FileOutputStream file = new FileOutputStream(tempFile)) {
+            file.write(new byte[HEADER_SIZE]); // Filled in once the sections are written
+
+            SectionWriter scalesSection = new SectionWriter(file);
+            for (Map.Entry<String, double[]> scale : scales.entrySet()) {
+                scalesSection.writeString(scale.getKey());
+                scalesSection.data.writeInt(scale.getValue().length);
+                for (double salary : scale.getValue()) {
+                    scalesSection.data.writeDouble(salary);
+                }
+            }
+            scalesSection.finish();
+
+            // A few hundred positions are shared by the whole roster: each is stored, and decoded, once
+            Map<String, Integer> positions = new LinkedHashMap<>();
+            for (Employee employee : employees) {
+                positions.putIfAbsent(employee.getEmployeePosition(), positions.size());
+            }
+            SectionWriter employeesSection = new SectionWriter(file);
+            employeesSection.data.writeInt(positions.size());
+            for (String position : positions.keySet()) {
+                employeesSection.writeString(position);
+            }
+            for (Employee employee : employees) {
+                encode(employeesSection, employee, positions);
+            }
+            employeesSection.finish();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION)
+                    .putInt(scalesSection.crc()).putInt(employeesSection.crc())
+                    .putInt(employees.size()).putInt(scales.size())
+                    .putLong(scalesSection.length).putLong(employeesSection.length);
+            employeesStamp.put(header);
+            partTimeStamp.put(header);
+            salaryStamp.put(header);
+            header.flip();
+            file.getChannel().write(header, 0);
+            file.getFD().sync();
+        }
+        Files.move(tempFile.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Writes the snapshot, reporting rather than throwing a failure: the CSV files are still the record
+    static void writeQuietly(File employeesFile, File partTimeFile) {
+        if (!ENABLED) {
+            return;
+        }
+        try {
+            write(employeesFile, partTimeFile);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error writing " + SNAPSHOT_FILE + ": " + e.getMessage());
+        }
+    }
+
+    private static File snapshotFileFor(File employeesFile) {
+        return new File(employeesFile.getAbsoluteFile().getParentFile(), SNAPSHOT_FILE);
+    }
+
+    private static void encode(SectionWriter section, Employee employee, Map<String, Integer> positions)
+            throws IOException {
+        DataOutputStream out = section.data;
+        out.writeByte(employee.getEmployeeType().ordinal());
+        out.writeInt(employee.getEmployeeId());
+        section.writeString(employee.getName());
+        out.writeInt(positions.get(employee.getEmployeePosition()));
+        if (employee instanceof PartTimeEmployee) {
+            PartTimeEmployee partTimeEmployee = (PartTimeEmployee) employee;
+            out.writeDouble(partTimeEmployee.getHourlyRate());
+            out.writeInt(partTimeEmployee.getHoursWorked());
+            out.writeByte(partTimeEmployee.isPaymentRequestSubmitted() ? 1 : 0);
+        } else {
+            out.writeDouble(employee.getSalary());
+            out.writeInt(employee.getSalaryPoint());
+            out.writeInt((int) employee.getLastPromotionDate().toEpochDay());
+            out.writeDouble(employee.getHealthInsuranceRate());
+        }
+    }
+
+    private static List<Employee> decodeEmployees(ByteBuffer section, int count) {
+        List<Employee> employees = new ArrayList<>(count);
+        byte[] scratch = new byte[256];
+        String[] positions = new String[section.getInt()];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = readString(section, scratch);
+        }
+        LocalDate today = LocalDate.now(); // The CSV loaders date part-time employees today
+        for (int i = 0; i < count; i++) {
+            Employee.EmployeeType employeeType = EMPLOYEE_TYPES[section.get()];
+            int employeeId = section.getInt();
+            String name = readString(section, scratch);
+            String employeePosition = positions[section.getInt()];
+            if (employeeType == Employee.EmployeeType.PART_TIME) {
+                double hourlyRate = section.getDouble();
+                int hoursWorked = section.getInt();
+                boolean paymentRequestSubmitted = section.get() != 0;
+                employees.add(new PartTimeEmployee(name, employeeId, employeePosition, hourlyRate, hoursWorked,
+                        today, paymentRequestSubmitted));
+            } else {
+                double salary = section.getDouble();
+                int salaryPoint = section.getInt();
+                LocalDate lastPromotionDate = LocalDate.ofEpochDay(section.getInt());
+                double healthInsuranceRate = section.getDouble();
+                employees.add(new Employee(name, employeeId, employeeType, employeePosition, salary, salaryPoint,
+                        lastPromotionDate, healthInsuranceRate));
+            }
+        }
+        return employees;
+    }
+
+    private static Map<String, double[]> decodeScales(ByteBuffer section, int count) {
+        Map<String, double[]> scales = new HashMap<>();
+        byte[] scratch = new byte[256];
+        for (int i = 0; i < count; i++) {
+            String category = readString(section, scratch);
+            double[] points = new double[section.getInt()];
+            section.asDoubleBuffer().get(points);
+            section.position(section.position() + points.length * Double.BYTES);
+            scales.put(category, points);
+        }
+        return scales;
+    }
+
+    private static String readString(ByteBuffer section, byte[] scratch) {
+        int length = Short.toUnsignedInt(section.getShort());
+        byte[] bytes = length <= scratch.length ? scratch : new byte[length];
+        section.get(bytes, 0, length);
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+
+    // Buffered writer for one section, tracking its length and CRC as the bytes go through to the file
+    private static class SectionWriter extends FilterOutputStream {
+        final CRC32 crc = new CRC32();
+        final DataOutputStream data = new DataOutputStream(new BufferedOutputStream(this, 1 << 16));
+        long length;
+
+        SectionWriter(FileOutputStream file) {
+            super(file);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int count) throws IOException {
+            crc.update(bytes, offset, count);
+            length += count;
+            out.write(bytes, offset, count);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        void writeString(String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > MAX_STRING_BYTES) {
+                throw new IOException("Text too long for " + SNAPSHOT_FILE + ": " + value.substring(0, 40) + "...");
+            }
+            data.writeShort(bytes.length);
+            data.write(bytes);
+        }
+
+        // Flushes the section through to the file, which stays open for the next one
+        void finish() throws IOException {
+            data.flush();
+        }
+
+        int crc() {
+            return (int) crc.getValue();
+        }
+    }
+
+    // A CSV file's last-modified time, length and CRC of its first and last SAMPLE_BYTES; all 0 if it does not exist
+    private static class Stamp {
+        final long lastModified;
+        final long length;
+        final int sampleCrc;
+
+        Stamp(File file) throws IOException {
+            this.lastModified = file.lastModified();
+            this.length = file.length();
+            this.sampleCrc = lastModified == 0 ? 0 : sampleCrc(file, length);
+        }
+
+        Stamp(ByteBuffer header) {
+            this.lastModified = header.getLong();
+            this.length = header.getLong();
+            this.sampleCrc = header.getInt();
+        }
+
+        void put(ByteBuffer header) {
+            header.putLong(lastModified).putLong(length).putInt(sampleCrc);
+        }
+
+        // The sample is only read once the time and length agree, and is at most 8 KB
+        boolean matches(File file) throws IOException {
+            return lastModified != 0 && file.lastModified() == lastModified && file.length() == length
+                    && sampleCrc(file, length) == sampleCrc;
+        }
+
+        private static int sampleCrc(File file, long length) throws IOException {
+            int headLength = (int) Math.min(length, SAMPLE_BYTES);
+            long tailStart = Math.max(headLength, length - SAMPLE_BYTES);
+            ByteBuffer sample = ByteBuffer.allocate(headLength + (int) (length - tailStart));
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                sample.limit(headLength);
+                readFully(channel, sample, 0);
+                sample.limit(sample.capacity());
+                readFully(channel, sample, tailStart - headLength);
+            }
+            sample.flip();
+            CRC32 crc = new CRC32();
+            crc.update(sample);
+            return (int) crc.getValue();
+        }
+
+        // Fills the buffer up to its limit from the channel, reading buffer position p at file position p + delta
+        private static void readFully(FileChannel channel, ByteBuffer buffer, long delta) throws IOException {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, buffer.position() + delta) < 0) {
+                    throw new IOException("File shrank while being read: " + buffer.remaining() + " bytes short");
+                }
+            }
+        }
+    }
+
+    private static class Header {
+        int scalesCrc;
+        int employeesCrc;
+        int employeeCount;
+        int categoryCount;
+        long scalesLength;
+        long employeesLength;
+        Stamp employeesStamp;
+        Stamp partTimeStamp;
+        Stamp salaryStamp;
+
+        // The header, or null if this is not a complete version VERSION snapshot
+        static Header read(FileChannel channel) throws IOException {
+            ByteBuffer bytes = ByteBuffer.allocate(HEADER_SIZE);
+            while (bytes.hasRemaining()) {
+                if (channel.read(bytes) < 0) {
+                    return null;
+                }
+            }
+            bytes.flip();
+            if (bytes.getInt() != MAGIC || bytes.getInt() != VERSION) {
+                return null;
+            }
+            Header header = new Header();
+            header.scalesCrc = bytes.getInt();
+            header.employeesCrc = bytes.getInt();
+            header.employeeCount = bytes.getInt();
+            header.categoryCount = bytes.getInt();
+            header.scalesLength = bytes.getLong();
+            header.employeesLength = bytes.getLong();
+            header.employeesStamp = new Stamp(bytes);
+            header.partTimeStamp = new Stamp(bytes);
+            header.salaryStamp = new Stamp(bytes);
+            if (channel.size() != HEADER_SIZE + header.scalesLength + header.employeesLength) {
+                return null;
+            }
+            return header;
+        }
+
+        boolean matchesRoster(File employeesFile, File partTimeFile) throws IOException {
+            return employeesStamp.matches(employeesFile) && partTimeStamp.matches(partTimeFile);
+        }
+
+        boolean matchesScales(File salaryFile) throws IOException {
+            return salaryStamp.matches(salaryFile);
+        }
+
+        ByteBuffer scalesSection(FileChannel channel) throws IOException {
+            return map(channel, HEADER_SIZE, scalesLength, scalesCrc);
+        }
+
+        ByteBuffer employeesSection(FileChannel channel) throws IOException {
+            return map(channel, HEADER_SIZE + scalesLength, employeesLength, employeesCrc);
+        }
+
+        // The section mapped into memory, or null if its checksum does not match
+        private static ByteBuffer map(FileChannel channel, long offset, long length, int expectedCrc) throws IOException {
+            MappedByteBuffer section = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+            CRC32 crc = new CRC32();
+            crc.update(section.duplicate());
+            return (int) crc.getValue() == expectedCrc ? section : null;
+        }
+    }
+}
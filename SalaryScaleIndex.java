@@ -0,0 +1,138 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// In-memory index of ULSalaryInformation.csv keyed by (category, scale point).
+// The file is parsed once and only parsed again when its last-modified time changes, which is checked at
+// most once per CHECK_INTERVAL_NANOS (or on load()). Lookups read the current table without locking.
+public class SalaryScaleIndex {
+
+    private static final String SALARY_FILE = "ULSalaryInformation.csv";
+    private static final SalaryScaleIndex INSTANCE = new SalaryScaleIndex(new File(SALARY_FILE));
+    private static final long CHECK_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final File file;
+    // Replaced as a whole on reload, never changed in place
+    private volatile Table table;
+    private volatile long nextCheckNanos;
+
+    public SalaryScaleIndex(File file) {
+        this.file = file;
+    }
+
+    // Shared index over ULSalaryInformation.csv
+    public static SalaryScaleIndex getInstance() {
+        return INSTANCE;
+    }
+
+    // Returns the salary for a category and scale point, or -1 if there is no such entry
+    public double getSalary(String category, int scalePoint) {
+        Table current = table;
+        if (current == null || System.nanoTime() - nextCheckNanos >= 0) {
+            current = reloadIfModified();
+        }
+        if (category == null) {
+            return -1;
+        }
+        double[] points = current.scales.get(normalize(category));
+        if (points == null || scalePoint < 0 || scalePoint >= points.length) {
+            return -1;
+        }
+        return points[scalePoint];
+    }
+
+    public boolean contains(String category, int scalePoint) {
+        return getSalary(category, scalePoint) >= 0;
+    }
+
+    // Loads the scales now rather than on the first lookup, e.g. while a server starts up, or picks up
+    // a change to the file without waiting for the next check
+    public void load() {
+        reloadIfModified();
+    }
+
+    // Re-reads the salary file if it has changed on disk since the last load
+    private synchronized Table reloadIfModified() {
+        long lastModified = file.lastModified();
+        Table current = table;
+        if (current == null || current.lastModified != lastModified) {
+            current = new Table(read(file), lastModified);
+            table = current;
+        }
+        nextCheckNanos = System.nanoTime() + CHECK_INTERVAL_NANOS;
+        return current;
+    }
+
+    // From the roster snapshot when it is current for this file (see RosterSnapshot), otherwise parsed
+    private static Map<String, double[]> read(File file) {
+        Map<String, double[]> snapshot = RosterSnapshot.readScales(file);
+        return snapshot != null ? snapshot : parse(file);
+    }
+
+    static Map<String, double[]> parse(File file) {
+        Map<String, double[]> loaded = new HashMap<>();
+
+        try (BufferedReader br = new BufferedReader(new FileReader(file))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                // Skip empty lines or header rows
+                if (line.isBlank() || line.startsWith("Category")) {
+                    continue;
+                }
+
+                String[] parts = line.split(",");
+                if (parts.length < 3) {
+                    continue;
+                }
+
+                try {
+                    String category = normalize(parts[0]);
+                    int scalePoint = Integer.parseInt(parts[1].trim());
+                    double salary = Double.parseDouble(parts[2].trim());
+                    if (scalePoint < 0) {
+                        continue;
+                    }
+
+                    double[] points = loaded.get(category);
+                    if (points == null || points.length <= scalePoint) {
+                        int oldLength = points == null ? 0 : points.length;
+                        points = points == null ? new double[scalePoint + 1] : Arrays.copyOf(points, scalePoint + 1);
+                        Arrays.fill(points, oldLength, points.length, -1);
+                        loaded.put(category, points);
+                    }
+                    // Keep the first entry for a point, as a top-down scan of the file would
+                    if (points[scalePoint] < 0) {
+                        points[scalePoint] = salary;
+                    }
+                } catch (NumberFormatException e) {
+                    System.err.println("Error parsing scale point or salary: " + e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error reading the file: " + e.getMessage());
+        }
+
+        return loaded;
+    }
+
+    private static String normalize(String category) {
+        return category.trim().toUpperCase(Locale.ROOT);
+    }
+
+    // Normalized category -> salaries indexed by scale point (-1 where a point is not defined)
+    private static final class Table {
+        final Map<String, double[]> scales;
+        final long lastModified;
+
+        Table(Map<String, double[]> scales, long lastModified) {
+            this.scales = Map.copyOf(scales);
+            this.lastModified = lastModified;
+        }
+    }
+}
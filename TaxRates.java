@@ -0,0 +1,209 @@
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.TreeMap;
+
+/*
+Deduction rates for one tax year, loaded from TaxRates.csv.
+
+Each row of the file is taxYear,deduction,threshold,rate:
+  USC         annual income bands (threshold = lower bound of the band)
+  INCOME_TAX  monthly income bands, a single band at 0 for a flat rate
+  PRSI        threshold = weekly earnings at or below which no PRSI is due, rate = rate on all earnings
+  UNION_FEES  threshold unused, rate = flat rate on monthly earnings
+
+A year without its own rows uses the most recent earlier year, so a rate change is a new block of rows.
+ */
+public class TaxRates {
+
+    private static final String RATES_FILE = "TaxRates.csv";
+    private static volatile TreeMap<Integer, TaxRates> ratesByYear;
+    private static volatile CurrentYear currentYear; // forYear(this year), until the year ends or the file is reloaded
+    private static Timer yearEnd; // guarded by TaxRates.class
+
+    private final int taxYear;
+    private final BracketTable usc;
+    private final BracketTable incomeTax;
+    private final long prsiWeeklyThreshold; // cents
+    private final long prsiRate;            // micros
+    private final long unionFeeRate;        // micros
+
+    public TaxRates(int taxYear, BracketTable usc, BracketTable incomeTax,
+                    double prsiWeeklyThreshold, double prsiRate, double unionFeeRate) {
+        this.taxYear = taxYear;
+        this.usc = usc;
+        this.incomeTax = incomeTax;
+        this.prsiWeeklyThreshold = Money.toCents(prsiWeeklyThreshold);
+        this.prsiRate = Money.rateToMicros(prsiRate);
+        this.unionFeeRate = Money.rateToMicros(unionFeeRate);
+    }
+
+    // Rates in force for the given year
+    public static TaxRates forYear(int year) {
+        TreeMap<Integer, TaxRates> rates = ratesByYear;
+        if (rates == null) {
+            rates = reload();
+        }
+        Map.Entry<Integer, TaxRates> entry = rates.floorEntry(year);
+        if (entry == null) {
+            throw new IllegalStateException("No tax rates defined in " + RATES_FILE + " for " + year + ".");
+        }
+        return entry.getValue();
+    }
+
+    // Rates in force today. The clock and the year lookup are only consulted again once the cached calendar
+    // year has ended (a timer drops the cached year then) or the file has been reloaded, so this is one
+    // field read per employee.
+    public static TaxRates current() {
+        CurrentYear cached = currentYear;
+        if (cached == null || cached.source != ratesByYear) {
+            cached = cacheCurrentYear();
+        }
+        return cached.rates;
+    }
+
+    private static synchronized CurrentYear cacheCurrentYear() {
+        ZoneId zone = ZoneId.systemDefault();
+        int year = LocalDate.now(zone).getYear();
+        TaxRates rates = forYear(year);
+        CurrentYear cached = new CurrentYear(ratesByYear, rates);
+        currentYear = cached;
+
+        if (yearEnd == null) {
+            yearEnd = new Timer("tax-year-end", true);
+        }
+        yearEnd.schedule(new TimerTask() {
+            @Override
+            public void run() {
+                synchronized (TaxRates.class) {
+                    if (currentYear == cached) {
+                        currentYear = null;
+                    }
+                }
+            }
+        }, Date.from(LocalDate.of(year + 1, 1, 1).atStartOfDay(zone).toInstant()));
+        return cached;
+    }
+
+    // Re-reads TaxRates.csv, e.g. after a new tax year has been added
+    public static synchronized TreeMap<Integer, TaxRates> reload() {
+        TreeMap<Integer, TaxRates> rates = load();
+        ratesByYear = rates;
+        return rates;
+    }
+
+    public int getTaxYear() {
+        return taxYear;
+    }
+
+    public BracketTable getUsc() {
+        return usc;
+    }
+
+    public BracketTable getIncomeTax() {
+        return incomeTax;
+    }
+
+    public long getPrsiWeeklyThresholdCents() {
+        return prsiWeeklyThreshold;
+    }
+
+    public long getPrsiRateMicros() {
+        return prsiRate;
+    }
+
+    public long getUnionFeeRateMicros() {
+        return unionFeeRate;
+    }
+
+    private static TreeMap<Integer, TaxRates> load() {
+        // tax year -> deduction -> rows of {threshold, rate}
+        Map<Integer, Map<String, List<double[]>>> rows = new HashMap<>();
+
+        try (BufferedReader br = new BufferedReader(new FileReader(RATES_FILE))) {
+            br.readLine(); // Skip the header line
+
+            String line;
+            while ((line = br.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                String[] parts = line.split(",");
+                try {
+                    int taxYear = Integer.parseInt(parts[0].trim());
+                    String deduction = parts[1].trim().toUpperCase(Locale.ROOT);
+                    double threshold = Double.parseDouble(parts[2].trim());
+                    double rate = Double.parseDouble(parts[3].trim());
+                    rows.computeIfAbsent(taxYear, year -> new HashMap<>())
+                            .computeIfAbsent(deduction, key -> new ArrayList<>())
+                            .add(new double[]{threshold, rate});
+                } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                    System.err.println("Skipping invalid line in " + RATES_FILE + ": " + line);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error reading " + RATES_FILE + ": " + e.getMessage());
+        }
+
+        TreeMap<Integer, TaxRates> rates = new TreeMap<>();
+        for (Map.Entry<Integer, Map<String, List<double[]>>> year : rows.entrySet()) {
+            Map<String, List<double[]>> deductions = year.getValue();
+            double[] prsi = single(year.getKey(), deductions, "PRSI");
+            double[] unionFees = single(year.getKey(), deductions, "UNION_FEES");
+            rates.put(year.getKey(), new TaxRates(
+                    year.getKey(),
+                    bands(year.getKey(), deductions, "USC"),
+                    bands(year.getKey(), deductions, "INCOME_TAX"),
+                    prsi[0], prsi[1], unionFees[1]));
+        }
+        return rates;
+    }
+
+    private static BracketTable bands(int year, Map<String, List<double[]>> deductions, String deduction) {
+        List<double[]> bands = required(year, deductions, deduction);
+        bands.sort((a, b) -> Double.compare(a[0], b[0]));
+        double[] thresholds = new double[bands.size()];
+        double[] rates = new double[bands.size()];
+        for (int i = 0; i < bands.size(); i++) {
+            thresholds[i] = bands.get(i)[0];
+            rates[i] = bands.get(i)[1];
+        }
+        return new BracketTable(thresholds, rates);
+    }
+
+    private static double[] single(int year, Map<String, List<double[]>> deductions, String deduction) {
+        List<double[]> values = required(year, deductions, deduction);
+        if (values.size() != 1) {
+            throw new IllegalStateException(deduction + " must have exactly one row for " + year + " in " + RATES_FILE + ".");
+        }
+        return values.get(0);
+    }
+
+    private static List<double[]> required(int year, Map<String, List<double[]>> deductions, String deduction) {
+        List<double[]> values = deductions.get(deduction);
+        if (values == null) {
+            throw new IllegalStateException("No " + deduction + " rates for " + year + " in " + RATES_FILE + ".");
+        }
+        return values;
+    }
+
+    private static final class CurrentYear {
+        final TreeMap<Integer, TaxRates> source;
+        final TaxRates rates;
+
+        CurrentYear(TreeMap<Integer, TaxRates> source, TaxRates rates) {
+            this.source = source;
+            this.rates = rates;
+        }
+    }
+}
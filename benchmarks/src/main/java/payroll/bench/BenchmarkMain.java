@@ -0,0 +1,36 @@
+package payroll.bench;
+
+import java.io.File;
+import java.util.Arrays;
+
+/*
+Launcher for target/benchmarks.jar (built with mvn package -Pbenchmarks).
+
+Takes the usual JMH command line and adds the GC profiler unless a -prof option is given, so every
+run reports allocation rates (gc.alloc.rate, gc.alloc.rate.norm) next to the timings. Run it from the
+repository root: readSalary and the deduction rates read ULSalaryInformation.csv and TaxRates.csv from
+the working directory. The synthetic rosters are written to a temp directory, never over Employees.csv.
+
+  java -jar target/benchmarks.jar                           all benchmarks, all roster sizes
+  java -jar target/benchmarks.jar PayrollSystem -p rows=1000  one benchmark class, one roster size
+ */
+public class BenchmarkMain {
+
+    public static void main(String[] args) throws Exception {
+        for (String dataFile : new String[]{"ULSalaryInformation.csv", "TaxRates.csv"}) {
+            if (!new File(dataFile).isFile()) {
+                System.err.println(dataFile + " not found; run the benchmarks from the repository root.");
+                System.exit(1);
+            }
+        }
+
+        String[] jmhArgs = args;
+        if (!Arrays.asList(args).contains("-prof")) {
+            jmhArgs = new String[args.length + 2];
+            jmhArgs[0] = "-prof";
+            jmhArgs[1] = "gc";
+            System.arraycopy(args, 0, jmhArgs, 2, args.length);
+        }
+        org.openjdk.jmh.Main.main(jmhArgs);
+    }
+}
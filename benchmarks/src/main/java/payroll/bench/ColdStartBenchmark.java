@@ -0,0 +1,89 @@
+package payroll.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Cold start of the roster: the first load in a fresh JVM, from the CSV files (BufferedReader/split and
+// memory-mapped parsers) and from the binary roster snapshot written next to an identical copy of them.
+// Each fork measures a single load, so class loading and the interpreter are part of the cost, as at startup.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(value = 5, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class ColdStartBenchmark {
+
+    private static final long SEED = 42;
+
+    @Param({"100000", "1000000"})
+    public int rows;
+
+    private File csvDirectory;
+    private File snapshotDirectory;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+        csvDirectory = Files.createTempDirectory("payroll-bench").toFile();
+        PayrollHandles.writeSyntheticRoster(new File("ULSalaryInformation.csv"), SEED,
+                employeesFile(csvDirectory), partTimeFile(csvDirectory), rows);
+
+        snapshotDirectory = Files.createTempDirectory("payroll-bench").toFile();
+        Files.copy(employeesFile(csvDirectory).toPath(), employeesFile(snapshotDirectory).toPath());
+        Files.copy(partTimeFile(csvDirectory).toPath(), partTimeFile(snapshotDirectory).toPath());
+        PayrollHandles.writeRosterSnapshot(employeesFile(snapshotDirectory), partTimeFile(snapshotDirectory));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        for (File directory : new File[]{csvDirectory, snapshotDirectory}) {
+            File[] files = directory.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    file.delete();
+                }
+            }
+            directory.delete();
+        }
+    }
+
+    @Benchmark
+    public List<?> csv() throws Throwable {
+        return PayrollHandles.readEmployeesFromCSV(employeesFile(csvDirectory), partTimeFile(csvDirectory));
+    }
+
+    @Benchmark
+    public List<?> mappedCsv() throws Throwable {
+        return PayrollHandles.readEmployeesFromMappedCSV(employeesFile(csvDirectory), partTimeFile(csvDirectory));
+    }
+
+    // The same loader as csv(), served from the snapshot because it is current
+    @Benchmark
+    public List<?> snapshot() throws Throwable {
+        return PayrollHandles.readEmployeesFromCSV(employeesFile(snapshotDirectory), partTimeFile(snapshotDirectory));
+    }
+
+    private static File employeesFile(File directory) {
+        return new File(directory, "Employees.csv");
+    }
+
+    private static File partTimeFile(File directory) {
+        return new File(directory, "PartTimeEmployees.csv");
+    }
+}
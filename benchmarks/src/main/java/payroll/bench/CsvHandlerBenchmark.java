@@ -0,0 +1,49 @@
+package payroll.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// CSVHandler operations: loading the whole roster with the BufferedReader/split and memory-mapped
+// parsers. ColdStartBenchmark measures the same loads as the first thing a fresh JVM does, and
+// EmployeeStoreBenchmark updating one employee. The roster snapshot is turned off, so the loads always
+// parse the CSV text.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g", "-Dpayroll.snapshot=false"})
+public class CsvHandlerBenchmark {
+
+    // Both parsers must produce the same employees before their timings mean anything
+    @Setup(Level.Trial)
+    public void checkLoadersAgree(RosterState roster) throws Throwable {
+        List<?> buffered = PayrollHandles.readEmployeesFromCSV(roster.employeesFile, roster.partTimeFile);
+        List<?> mapped = PayrollHandles.readEmployeesFromMappedCSV(roster.employeesFile, roster.partTimeFile);
+        if (!buffered.toString().equals(mapped.toString())) {
+            throw new IllegalStateException("Mapped loader returned different employees.");
+        }
+    }
+
+    @Benchmark
+    public List<?> readEmployeesFromCSV(RosterState roster) throws Throwable {
+        return PayrollHandles.readEmployeesFromCSV(roster.employeesFile, roster.partTimeFile);
+    }
+
+    @Benchmark
+    public List<?> readEmployeesFromMappedCSV(RosterState roster) throws Throwable {
+        return PayrollHandles.readEmployeesFromMappedCSV(roster.employeesFile, roster.partTimeFile);
+    }
+}
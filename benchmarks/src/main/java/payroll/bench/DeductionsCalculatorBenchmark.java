@@ -0,0 +1,32 @@
+package payroll.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// DeductionsCalculator.calculateTotalDeductions for one employee per call, cycling through the roster
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class DeductionsCalculatorBenchmark {
+
+    private int next;
+
+    @Benchmark
+    public long calculateTotalDeductions(RosterState roster) throws Throwable {
+        int i = next;
+        next = i + 1 == roster.employees.length ? 0 : i + 1;
+        return PayrollHandles.calculateTotalDeductions(roster.calculators[i], roster.employees[i]);
+    }
+}
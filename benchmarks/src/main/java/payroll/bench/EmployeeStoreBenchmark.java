@@ -0,0 +1,55 @@
+package payroll.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+// Updating one employee the way the CLI and the server do: through CachedEmployeeRepository into an
+// EmployeeStore (a log append and sync per group commit), over a store loaded with the synthetic roster
+// in the roster's temp directory.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class EmployeeStoreBenchmark {
+
+    private Object store;
+    private Object repository;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp(RosterState roster) throws Throwable {
+        store = PayrollHandles.openEmployeeStore(new File(roster.directory, "Employees.db"),
+                new File(roster.directory, "Employees.wal"));
+        PayrollHandles.insertAll(store, Arrays.asList(roster.employees));
+        repository = PayrollHandles.newEmployeeRepository(store);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Throwable {
+        PayrollHandles.closeEmployeeStore(store);
+    }
+
+    // Rewrites one (unchanged) employee, cycling through the roster
+    @Benchmark
+    public void updateEmployee(RosterState roster) throws Throwable {
+        Object employee = roster.employees[next];
+        next = (next + 1) % roster.employees.length;
+        PayrollHandles.updateEmployee(repository, employee);
+    }
+}
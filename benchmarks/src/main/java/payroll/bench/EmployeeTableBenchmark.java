@@ -0,0 +1,77 @@
+package payroll.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+// Month-end pay for the whole roster through the column-oriented EmployeeTable against the per-Employee
+// path of PayrollSystemBenchmark. Setup fails if the table disagrees with either the per-Employee payslip
+// or the employee's own DeductionsCalculator on any gross or net pay, so it cannot drift unnoticed.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class EmployeeTableBenchmark {
+
+    private Object table;
+    private Object rates;
+    private LocalDate payDate;
+    private long[] grossPay;
+    private long[] netPay;
+
+    @Setup(Level.Trial)
+    public void setUp(RosterState roster) throws Throwable {
+        table = PayrollHandles.newEmployeeTable(Arrays.asList(roster.employees));
+        rates = PayrollHandles.currentTaxRates();
+        payDate = LocalDate.now();
+        grossPay = new long[roster.employees.length];
+        netPay = new long[roster.employees.length];
+
+        PayrollHandles.computeTablePay(table, rates, grossPay, netPay);
+        for (int i = 0; i < roster.employees.length; i++) {
+            Object payslip = PayrollHandles.generateMonthlyPayslips(roster.employees[i]);
+            if (PayrollHandles.getGrossPay(payslip) != grossPay[i] || PayrollHandles.getNetPay(payslip) != netPay[i]) {
+                throw new IllegalStateException("EmployeeTable and PayrollSystem disagree on row " + i + ".");
+            }
+            long deductions = PayrollHandles.calculateTotalDeductions(roster.calculators[i], roster.employees[i]);
+            if (grossPay[i] - deductions != netPay[i]) {
+                throw new IllegalStateException("EmployeeTable and DeductionsCalculator disagree on row " + i + ".");
+            }
+        }
+    }
+
+    // Gross and net pay into primitive arrays, no payslips
+    @Benchmark
+    public long[] computeMonthlyPay() throws Throwable {
+        PayrollHandles.computeTablePay(table, rates, grossPay, netPay);
+        return netPay;
+    }
+
+    // Same result as PayrollSystemBenchmark: one payslip per employee
+    @Benchmark
+    public Object[] tablePayslips() throws Throwable {
+        return PayrollHandles.generateTablePayslips(table, rates, payDate);
+    }
+
+    @Benchmark
+    public void perEmployeePayslips(RosterState roster, Blackhole blackhole) throws Throwable {
+        for (Object employee : roster.employees) {
+            blackhole.consume(PayrollHandles.generateMonthlyPayslips(employee));
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package payroll.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/*
+Rounding, summing and formatting 10,000 payslip amounts, three ways:
+  double      the previous path: double arithmetic, rounded only inside String.format("%.2f")
+  bigDecimal  exact, but one or more BigDecimal allocations per amount
+  cents       Money: round once to long cents, then exact long arithmetic and Money.append
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MoneyBenchmark {
+
+    private static final int AMOUNTS = 10_000;
+
+    private double[] amounts;
+    private long[] cents;
+    private BigDecimal[] decimals;
+    private final StringBuilder row = new StringBuilder(32);
+
+    @Setup(Level.Trial)
+    public void createAmounts() throws Throwable {
+        Random random = new Random(42);
+        amounts = new double[AMOUNTS];
+        cents = new long[AMOUNTS];
+        decimals = new BigDecimal[AMOUNTS];
+        for (int i = 0; i < AMOUNTS; i++) {
+            amounts[i] = 40_000 + random.nextDouble() * 120_000 / 12; // monthly salaries, full double precision
+            cents[i] = PayrollHandles.toCents(amounts[i]);
+            decimals[i] = BigDecimal.valueOf(amounts[i]).setScale(2, RoundingMode.HALF_UP);
+        }
+    }
+
+    @Benchmark
+    public double sumDouble() {
+        double total = 0;
+        for (double amount : amounts) {
+            total += amount * 0.2;
+        }
+        return total;
+    }
+
+    @Benchmark
+    public BigDecimal sumBigDecimal() {
+        BigDecimal rate = new BigDecimal("0.2");
+        BigDecimal total = BigDecimal.ZERO;
+        for (BigDecimal amount : decimals) {
+            total = total.add(amount.multiply(rate).setScale(2, RoundingMode.HALF_UP));
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long sumCents() throws Throwable {
+        long total = 0;
+        for (long amount : cents) {
+            total += PayrollHandles.applyRate(amount, 200_000); // 20% in micros
+        }
+        return total;
+    }
+
+    @Benchmark
+    public int formatDouble() {
+        int length = 0;
+        for (double amount : amounts) {
+            length += String.format("%.2f", amount).length();
+        }
+        return length;
+    }
+
+    @Benchmark
+    public int formatBigDecimal() {
+        int length = 0;
+        for (double amount : amounts) {
+            length += BigDecimal.valueOf(amount).setScale(2, RoundingMode.HALF_UP).toPlainString().length();
+        }
+        return length;
+    }
+
+    // Includes the double -> cents conversion done once per amount at the edge of the payroll
+    @Benchmark
+    public int formatCents() throws Throwable {
+        int length = 0;
+        for (double amount : amounts) {
+            row.setLength(0);
+            PayrollHandles.appendCents(row, PayrollHandles.toCents(amount));
+            length += row.length();
+        }
+        return length;
+    }
+}
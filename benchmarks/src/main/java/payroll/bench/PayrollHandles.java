@@ -0,0 +1,268 @@
+package payroll.bench;
+
+import java.io.File;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.time.LocalDate;
+import java.util.List;
+
+/*
+Entry points into the payroll classes for the benchmarks.
+
+The application lives in the default package, which classes in a named package cannot import, and JMH
+refuses to generate benchmarks for default-package classes. The benchmarks therefore call the
+application through these method handles. They are static final, so the JIT treats them as constants
+and inlines the target exactly as it would a direct call. Application types that cannot be named here
+(Employee, Payslip, DeductionsCalculator, EmployeeTable, ...) are passed around as Object.
+ */
+final class PayrollHandles {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.publicLookup();
+
+    private static final Class<?> CSV_HANDLER = load("CSVHandler");
+    private static final Class<?> EMPLOYEE = load("Employee");
+    private static final Class<?> PAYSLIP = load("Payslip");
+    private static final Class<?> DEDUCTIONS_CALCULATOR = load("DeductionsCalculator");
+    private static final Class<?> PAYROLL_SYSTEM = load("PayrollSystem");
+    private static final Class<?> DATASET_GENERATOR = load("PayrollDatasetGenerator");
+    private static final Class<?> MONEY = load("Money");
+    private static final Class<?> ROSTER_SNAPSHOT = load("RosterSnapshot");
+    private static final Class<?> EMPLOYEE_TABLE = load("EmployeeTable");
+    private static final Class<?> TAX_RATES = load("TaxRates");
+    private static final Class<?> EMPLOYEE_STORE = load("EmployeeStore");
+    private static final Class<?> CACHED_REPOSITORY = load("CachedEmployeeRepository");
+
+    // List<Employee> CSVHandler.readEmployeesFromCSV(File employeesFile, File partTimeFile)
+    private static final MethodHandle READ_EMPLOYEES = findStatic(CSV_HANDLER, "readEmployeesFromCSV",
+            MethodType.methodType(List.class, File.class, File.class));
+
+    // List<Employee> CSVHandler.readEmployeesFromMappedCSV(File employeesFile, File partTimeFile)
+    private static final MethodHandle READ_EMPLOYEES_MAPPED = findStatic(CSV_HANDLER, "readEmployeesFromMappedCSV",
+            MethodType.methodType(List.class, File.class, File.class));
+
+    // void RosterSnapshot.write(File employeesFile, File partTimeFile)
+    private static final MethodHandle WRITE_SNAPSHOT = findStatic(ROSTER_SNAPSHOT, "write",
+            MethodType.methodType(void.class, File.class, File.class));
+
+    // double CSVHandler.readSalary(String employeePosition, int salaryPoint)
+    private static final MethodHandle READ_SALARY = findStatic(CSV_HANDLER, "readSalary",
+            MethodType.methodType(double.class, String.class, int.class));
+
+    // EmployeeStore EmployeeStore.open(File dataFile, File walFile)
+    private static final MethodHandle OPEN_STORE = findStatic(EMPLOYEE_STORE, "open",
+            MethodType.methodType(EMPLOYEE_STORE, File.class, File.class))
+            .asType(MethodType.methodType(Object.class, File.class, File.class));
+
+    // void EmployeeStore.insertAll(List<Employee> employees)
+    private static final MethodHandle STORE_INSERT_ALL = findVirtual(EMPLOYEE_STORE, "insertAll",
+            MethodType.methodType(void.class, List.class))
+            .asType(MethodType.methodType(void.class, Object.class, List.class));
+
+    // void EmployeeStore.close()
+    private static final MethodHandle CLOSE_STORE = findVirtual(EMPLOYEE_STORE, "close",
+            MethodType.methodType(void.class))
+            .asType(MethodType.methodType(void.class, Object.class));
+
+    // new CachedEmployeeRepository(EmployeeStore store)
+    private static final MethodHandle NEW_REPOSITORY = findConstructor(CACHED_REPOSITORY,
+            MethodType.methodType(void.class, EMPLOYEE_STORE))
+            .asType(MethodType.methodType(Object.class, Object.class));
+
+    // void CachedEmployeeRepository.update(Employee employee)
+    private static final MethodHandle UPDATE_EMPLOYEE = findVirtual(CACHED_REPOSITORY, "update",
+            MethodType.methodType(void.class, EMPLOYEE))
+            .asType(MethodType.methodType(void.class, Object.class, Object.class));
+
+    // DeductionsCalculator Employee.getDeductionsCalculator()
+    private static final MethodHandle GET_CALCULATOR = findVirtual(EMPLOYEE, "getDeductionsCalculator",
+            MethodType.methodType(DEDUCTIONS_CALCULATOR))
+            .asType(MethodType.methodType(Object.class, Object.class));
+
+    // long DeductionsCalculator.calculateTotalDeductions(Employee employee), in cents
+    private static final MethodHandle TOTAL_DEDUCTIONS = findVirtual(DEDUCTIONS_CALCULATOR, "calculateTotalDeductions",
+            MethodType.methodType(long.class, EMPLOYEE))
+            .asType(MethodType.methodType(long.class, Object.class, Object.class));
+
+    // Payslip PayrollSystem.generateMonthlyPayslips(Employee employee)
+    private static final MethodHandle GENERATE_PAYSLIP = findStatic(PAYROLL_SYSTEM, "generateMonthlyPayslips",
+            MethodType.methodType(PAYSLIP, EMPLOYEE))
+            .asType(MethodType.methodType(Object.class, Object.class));
+
+    // long Payslip.getGrossPay(), in cents
+    private static final MethodHandle GROSS_PAY = findVirtual(PAYSLIP, "getGrossPay",
+            MethodType.methodType(long.class))
+            .asType(MethodType.methodType(long.class, Object.class));
+
+    // long Payslip.getNetPay(), in cents
+    private static final MethodHandle NET_PAY = findVirtual(PAYSLIP, "getNetPay",
+            MethodType.methodType(long.class))
+            .asType(MethodType.methodType(long.class, Object.class));
+
+    // TaxRates TaxRates.current()
+    private static final MethodHandle CURRENT_RATES = findStatic(TAX_RATES, "current",
+            MethodType.methodType(TAX_RATES))
+            .asType(MethodType.methodType(Object.class));
+
+    // EmployeeTable EmployeeTable.fromEmployees(List<Employee> employees)
+    private static final MethodHandle NEW_TABLE = findStatic(EMPLOYEE_TABLE, "fromEmployees",
+            MethodType.methodType(EMPLOYEE_TABLE, List.class))
+            .asType(MethodType.methodType(Object.class, List.class));
+
+    // void EmployeeTable.computeMonthlyPay(TaxRates rates, long[] grossPay, long[] netPay)
+    private static final MethodHandle COMPUTE_TABLE_PAY = findVirtual(EMPLOYEE_TABLE, "computeMonthlyPay",
+            MethodType.methodType(void.class, TAX_RATES, long[].class, long[].class))
+            .asType(MethodType.methodType(void.class, Object.class, Object.class, long[].class, long[].class));
+
+    // Payslip[] EmployeeTable.generateMonthlyPayslips(TaxRates rates, LocalDate payDate)
+    private static final MethodHandle GENERATE_TABLE_PAYSLIPS = findVirtual(EMPLOYEE_TABLE, "generateMonthlyPayslips",
+            MethodType.methodType(PAYSLIP.arrayType(), TAX_RATES, LocalDate.class))
+            .asType(MethodType.methodType(Object[].class, Object.class, Object.class, LocalDate.class));
+
+    // long Money.toCents(double amount)
+    private static final MethodHandle TO_CENTS = findStatic(MONEY, "toCents",
+            MethodType.methodType(long.class, double.class));
+
+    // long Money.applyRate(long cents, long rateMicros)
+    private static final MethodHandle APPLY_RATE = findStatic(MONEY, "applyRate",
+            MethodType.methodType(long.class, long.class, long.class));
+
+    // void Money.append(StringBuilder sb, long cents)
+    private static final MethodHandle APPEND_CENTS = findStatic(MONEY, "append",
+            MethodType.methodType(void.class, StringBuilder.class, long.class));
+
+    // new PayrollDatasetGenerator(File salaryFile, long seed)
+    private static final MethodHandle NEW_GENERATOR = findConstructor(DATASET_GENERATOR,
+            MethodType.methodType(void.class, File.class, long.class))
+            .asType(MethodType.methodType(Object.class, File.class, long.class));
+
+    // void PayrollDatasetGenerator.writeRoster(File employeesFile, File partTimeFile, int employees)
+    private static final MethodHandle WRITE_ROSTER = findVirtual(DATASET_GENERATOR, "writeRoster",
+            MethodType.methodType(void.class, File.class, File.class, int.class))
+            .asType(MethodType.methodType(void.class, Object.class, File.class, File.class, int.class));
+
+    private PayrollHandles() {
+    }
+
+    static List<?> readEmployeesFromCSV(File employeesFile, File partTimeFile) throws Throwable {
+        return (List<?>) READ_EMPLOYEES.invokeExact(employeesFile, partTimeFile);
+    }
+
+    static List<?> readEmployeesFromMappedCSV(File employeesFile, File partTimeFile) throws Throwable {
+        return (List<?>) READ_EMPLOYEES_MAPPED.invokeExact(employeesFile, partTimeFile);
+    }
+
+    static void writeRosterSnapshot(File employeesFile, File partTimeFile) throws Throwable {
+        WRITE_SNAPSHOT.invokeExact(employeesFile, partTimeFile);
+    }
+
+    static double readSalary(String employeePosition, int salaryPoint) throws Throwable {
+        return (double) READ_SALARY.invokeExact(employeePosition, salaryPoint);
+    }
+
+    static Object openEmployeeStore(File dataFile, File walFile) throws Throwable {
+        return (Object) OPEN_STORE.invokeExact(dataFile, walFile);
+    }
+
+    static void insertAll(Object store, List<?> employees) throws Throwable {
+        STORE_INSERT_ALL.invokeExact(store, employees);
+    }
+
+    static void closeEmployeeStore(Object store) throws Throwable {
+        CLOSE_STORE.invokeExact(store);
+    }
+
+    static Object newEmployeeRepository(Object store) throws Throwable {
+        return (Object) NEW_REPOSITORY.invokeExact(store);
+    }
+
+    static void updateEmployee(Object repository, Object employee) throws Throwable {
+        UPDATE_EMPLOYEE.invokeExact(repository, employee);
+    }
+
+    static Object getDeductionsCalculator(Object employee) throws Throwable {
+        return (Object) GET_CALCULATOR.invokeExact(employee);
+    }
+
+    static long calculateTotalDeductions(Object calculator, Object employee) throws Throwable {
+        return (long) TOTAL_DEDUCTIONS.invokeExact(calculator, employee);
+    }
+
+    static Object generateMonthlyPayslips(Object employee) throws Throwable {
+        return (Object) GENERATE_PAYSLIP.invokeExact(employee);
+    }
+
+    static long getGrossPay(Object payslip) throws Throwable {
+        return (long) GROSS_PAY.invokeExact(payslip);
+    }
+
+    static long getNetPay(Object payslip) throws Throwable {
+        return (long) NET_PAY.invokeExact(payslip);
+    }
+
+    static Object currentTaxRates() throws Throwable {
+        return (Object) CURRENT_RATES.invokeExact();
+    }
+
+    static Object newEmployeeTable(List<?> employees) throws Throwable {
+        return (Object) NEW_TABLE.invokeExact(employees);
+    }
+
+    static void computeTablePay(Object table, Object rates, long[] grossPay, long[] netPay) throws Throwable {
+        COMPUTE_TABLE_PAY.invokeExact(table, rates, grossPay, netPay);
+    }
+
+    static Object[] generateTablePayslips(Object table, Object rates, LocalDate payDate) throws Throwable {
+        return (Object[]) GENERATE_TABLE_PAYSLIPS.invokeExact(table, rates, payDate);
+    }
+
+    static long toCents(double amount) throws Throwable {
+        return (long) TO_CENTS.invokeExact(amount);
+    }
+
+    static long applyRate(long cents, long rateMicros) throws Throwable {
+        return (long) APPLY_RATE.invokeExact(cents, rateMicros);
+    }
+
+    static void appendCents(StringBuilder sb, long cents) throws Throwable {
+        APPEND_CENTS.invokeExact(sb, cents);
+    }
+
+    static void writeSyntheticRoster(File salaryFile, long seed, File employeesFile, File partTimeFile, int employees)
+            throws Throwable {
+        Object generator = (Object) NEW_GENERATOR.invokeExact(salaryFile, seed);
+        WRITE_ROSTER.invokeExact(generator, employeesFile, partTimeFile, employees);
+    }
+
+    private static Class<?> load(String name) {
+        try {
+            return Class.forName(name, false, PayrollHandles.class.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("Payroll class " + name + " is not on the class path.", e);
+        }
+    }
+
+    private static MethodHandle findStatic(Class<?> owner, String name, MethodType type) {
+        try {
+            return LOOKUP.findStatic(owner, name, type);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Missing " + owner.getName() + "." + name + type, e);
+        }
+    }
+
+    private static MethodHandle findConstructor(Class<?> owner, MethodType type) {
+        try {
+            return LOOKUP.findConstructor(owner, type);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Missing " + owner.getName() + " constructor " + type, e);
+        }
+    }
+
+    private static MethodHandle findVirtual(Class<?> owner, String name, MethodType type) {
+        try {
+            return LOOKUP.findVirtual(owner, name, type);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Missing " + owner.getName() + "." + name + type, e);
+        }
+    }
+}
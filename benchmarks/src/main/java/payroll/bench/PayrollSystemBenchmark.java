@@ -0,0 +1,28 @@
+package payroll.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+// A full month-end computation: PayrollSystem.generateMonthlyPayslips for every employee on the roster
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class PayrollSystemBenchmark {
+
+    @Benchmark
+    public void generateMonthlyPayslips(RosterState roster, Blackhole blackhole) throws Throwable {
+        for (Object employee : roster.employees) {
+            blackhole.consume(PayrollHandles.generateMonthlyPayslips(employee));
+        }
+    }
+}
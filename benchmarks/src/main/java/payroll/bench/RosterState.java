@@ -0,0 +1,60 @@
+package payroll.bench;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.List;
+
+// Synthetic roster of 1k, 100k or 1M employees from PayrollDatasetGenerator, written to a temp directory and
+// loaded once per trial
+@State(Scope.Benchmark)
+public class RosterState {
+
+    private static final long SEED = 42;
+
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    File directory;
+    File employeesFile;
+    File partTimeFile;
+
+    // Loaded Employee objects and their calculators, in row order
+    Object[] employees;
+    Object[] calculators;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+        directory = Files.createTempDirectory("payroll-bench").toFile();
+        employeesFile = new File(directory, "Employees.csv");
+        partTimeFile = new File(directory, "PartTimeEmployees.csv");
+        PayrollHandles.writeSyntheticRoster(new File("ULSalaryInformation.csv"), SEED, employeesFile, partTimeFile, rows);
+
+        List<?> loaded = PayrollHandles.readEmployeesFromCSV(employeesFile, partTimeFile);
+        if (loaded.size() != rows) {
+            throw new IllegalStateException("Expected " + rows + " employees but loaded " + loaded.size() + ".");
+        }
+        employees = loaded.toArray();
+        calculators = new Object[employees.length];
+        for (int i = 0; i < employees.length; i++) {
+            calculators[i] = PayrollHandles.getDeductionsCalculator(employees[i]);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        File[] files = directory.listFiles(); // The roster files and anything written next to them
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+}
@@ -0,0 +1,71 @@
+package payroll.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// CSVHandler.readSalary over every (category, scale point) pair in ULSalaryInformation.csv, in file order
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SalaryLookupBenchmark {
+
+    private String[] categories;
+    private int[] scalePoints;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void loadScalePoints() throws Throwable {
+        List<String> categoryList = new ArrayList<>();
+        List<Integer> pointList = new ArrayList<>();
+        try (BufferedReader br = new BufferedReader(new FileReader("ULSalaryInformation.csv"))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                String[] parts = line.split(",");
+                if (line.isBlank() || line.startsWith("Category") || parts.length < 3) {
+                    continue;
+                }
+                try {
+                    int scalePoint = Integer.parseInt(parts[1].trim());
+                    categoryList.add(parts[0]);
+                    pointList.add(scalePoint);
+                } catch (NumberFormatException e) {
+                    // Not a scale point row
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Run the benchmarks from the directory holding ULSalaryInformation.csv.", e);
+        }
+
+        categories = categoryList.toArray(new String[0]);
+        scalePoints = pointList.stream().mapToInt(Integer::intValue).toArray();
+        if (categories.length == 0 || PayrollHandles.readSalary(categories[0], scalePoints[0]) < 0) {
+            throw new IllegalStateException("ULSalaryInformation.csv has no usable scale points.");
+        }
+    }
+
+    @Benchmark
+    public double readSalary() throws Throwable {
+        int i = next;
+        next = i + 1 == categories.length ? 0 : i + 1;
+        return PayrollHandles.readSalary(categories[i], scalePoints[i]);
+    }
+}